@@ -0,0 +1,298 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonDeserializer.TypedDeserializer;
+import io.starburst.json.JsonToken.BeginArrayToken;
+import io.starburst.json.JsonToken.BeginObjectToken;
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.EndArrayToken;
+import io.starburst.json.JsonToken.EndObjectToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.ObjectNameToken;
+import io.starburst.json.JsonToken.StringSliceToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.JsonToken.ValueSeparatorToken;
+import io.starburst.json.JsonValue.JsonArray;
+import io.starburst.json.JsonValue.JsonObject;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+// See JsonValue.compactInstance(). The value is kept as a tape - one node per name and value in document
+// order held in parallel arrays: a kind byte and a long payload. Long numbers are stored in the payload
+// (so a numeric array is a run of primitive longs), strings, names and other numbers are an index into a
+// pool of distinct strings, and a '{' or '[' node holds the index just past its last descendant so that
+// whole values can be stepped over. JsonObject and JsonArray are order-preserving Map and List views of the
+// tape - tokens are created as members are read.
+final class CompactJsonValue
+{
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+    private static final byte NAME = 2;
+    private static final byte STRING = 3;
+    private static final byte LONG = 4;
+    private static final byte NUMBER = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte NULL = 8;
+
+    private final byte[] kinds;
+    private final long[] payloads;
+    private final String[] strings;
+
+    private CompactJsonValue(byte[] kinds, long[] payloads, String[] strings)
+    {
+        this.kinds = kinds;
+        this.payloads = payloads;
+        this.strings = strings;
+    }
+
+    static TypedDeserializer typedDeserializer(TypedDeserializer parentTypedDeserializer)
+    {
+        return new TypedDeserializer()
+        {
+            private final Map<String, Integer> stringIds = new HashMap<>();
+            private byte[] kinds = new byte[64];
+            private long[] payloads = new long[64];
+            private int count;
+            private int[] stack = new int[16];      // the open containers
+            private int depth;
+            private JsonValue<?> value;
+
+            @Override
+            public String toString()
+            {
+                return "compactJsonValueTypedDeserializer";
+            }
+
+            @Override
+            public TypedDeserializer accept(JsonToken jsonToken)
+            {
+                switch (jsonToken) {
+                    case BeginObjectToken __ -> open(OBJECT);
+                    case BeginArrayToken __ -> open(ARRAY);
+                    case EndObjectToken __ -> close();
+                    case EndArrayToken __ -> close();
+                    case ValueSeparatorToken __ -> {}
+                    case ObjectNameToken(var name) -> add(NAME, stringId(name));
+                    case StringToken token -> add(STRING, stringId(token.value()));
+                    case StringSliceToken(var chars) -> add(STRING, stringId(chars.toString()));
+                    case NumberToken(var number) when number instanceof Long -> add(LONG, number.longValue());
+                    case NumberToken(var number) -> add(NUMBER, stringId(number.toString()));
+                    case BooleanToken(var booleanValue) -> add(booleanValue ? TRUE : FALSE, 0);
+                    case NullToken __ -> add(NULL, 0);
+                }
+                if (depth > 0) {
+                    return this;
+                }
+                String[] pool = new String[stringIds.size()];
+                stringIds.forEach((string, id) -> pool[id] = string);
+                value = new CompactJsonValue(Arrays.copyOf(kinds, count), Arrays.copyOf(payloads, count), pool).value(0);
+                return parentTypedDeserializer;
+            }
+
+            @Override
+            public Object value()
+            {
+                if (value == null) {
+                    throw new RuntimeException("JsonValue is not complete");
+                }
+                return value;
+            }
+
+            private void open(byte kind)
+            {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = add(kind, 0);
+            }
+
+            private void close()
+            {
+                payloads[stack[--depth]] = count;
+            }
+
+            private int add(byte kind, long payload)
+            {
+                if (count == kinds.length) {
+                    kinds = Arrays.copyOf(kinds, count * 2);
+                    payloads = Arrays.copyOf(payloads, count * 2);
+                }
+                kinds[count] = kind;
+                payloads[count] = payload;
+                return count++;
+            }
+
+            private int stringId(String string)
+            {
+                return stringIds.computeIfAbsent(string, __ -> stringIds.size());
+            }
+        };
+    }
+
+    // the node after the value at node
+    private int skip(int node)
+    {
+        return ((kinds[node] == OBJECT) || (kinds[node] == ARRAY)) ? (int) payloads[node] : (node + 1);
+    }
+
+    private JsonValue<?> value(int node)
+    {
+        long payload = payloads[node];
+        return switch (kinds[node]) {
+            case OBJECT -> new JsonObject(new CompactObject(node));
+            case ARRAY -> new JsonArray(new CompactArray(node));
+            case STRING -> new StringToken(strings[(int) payload]);
+            case LONG -> NumberToken.of(payload);
+            case NUMBER -> NumberToken.of(strings[(int) payload]);
+            case TRUE -> BooleanToken.TRUE;
+            case FALSE -> BooleanToken.FALSE;
+            case NULL -> NullToken.INSTANCE;
+            default -> throw new IllegalStateException("Unexpected node kind: " + kinds[node]);
+        };
+    }
+
+    private final class CompactObject
+            extends AbstractMap<String, JsonValue<?>>
+    {
+        private final int open;
+        // name -> value node, in document order. A repeated name keeps its first position and its last value.
+        private Map<String, Integer> members;
+
+        private CompactObject(int open)
+        {
+            this.open = open;
+        }
+
+        @Override
+        public JsonValue<?> get(Object key)
+        {
+            Integer node = members().get(key);
+            return (node == null) ? null : value(node);
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return members().containsKey(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return members().size();
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue<?>>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public Iterator<Entry<String, JsonValue<?>>> iterator()
+                {
+                    Iterator<Entry<String, Integer>> iterator = members().entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue<?>> next()
+                        {
+                            Entry<String, Integer> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), value(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return members().size();
+                }
+            };
+        }
+
+        private Map<String, Integer> members()
+        {
+            if (members == null) {
+                members = new LinkedHashMap<>();
+                int end = (int) payloads[open];
+                for (int node = open + 1; node < end; node = skip(node + 1)) {
+                    members.put(strings[(int) payloads[node]], node + 1);
+                }
+            }
+            return members;
+        }
+    }
+
+    private final class CompactArray
+            extends AbstractList<JsonValue<?>>
+            implements RandomAccess
+    {
+        private final int open;
+        private int[] elements;
+
+        private CompactArray(int open)
+        {
+            this.open = open;
+        }
+
+        @Override
+        public JsonValue<?> get(int index)
+        {
+            return value(elements()[index]);
+        }
+
+        @Override
+        public int size()
+        {
+            return elements().length;
+        }
+
+        private int[] elements()
+        {
+            if (elements == null) {
+                int end = (int) payloads[open];
+                int size = 0;
+                for (int node = open + 1; node < end; node = skip(node)) {
+                    ++size;
+                }
+                elements = new int[size];
+                int index = 0;
+                for (int node = open + 1; node < end; node = skip(node)) {
+                    elements[index++] = node;
+                }
+            }
+            return elements;
+        }
+    }
+}
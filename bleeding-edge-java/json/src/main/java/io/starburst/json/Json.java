@@ -18,22 +18,34 @@ package io.starburst.json;
 import io.starburst.json.JsonDeserializer.PredicateDeserializer;
 import io.starburst.json.JsonDeserializerCollector.CollectingConsumer;
 import io.starburst.json.JsonSerializer.PredicateSerializer;
+import io.starburst.json.util.ArrayElements;
 import io.starburst.json.util.Cache;
+import io.starburst.json.util.Chars;
+import io.starburst.json.util.Lines;
 import io.starburst.json.util.TypeToken;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static io.starburst.json.JsonDeserializerCollector.collectingConsumer;
 
 public interface Json
 {
+    int WRITER_BUFFER_SIZE = 8192;
+
     static Json instance()
     {
         return builder().build();
@@ -51,6 +63,61 @@ public interface Json
 
     <T> T deserialize(Class<T> type, Reader reader);
 
+    <T> T deserialize(TypeToken<T> type, byte[] utf8);
+
+    <T> T deserialize(Class<T> type, byte[] utf8);
+
+    <T> T deserialize(TypeToken<T> type, ByteBuffer utf8);
+
+    <T> T deserialize(Class<T> type, ByteBuffer utf8);
+
+    <T> T deserialize(TypeToken<T> type, InputStream utf8);
+
+    <T> T deserialize(Class<T> type, InputStream utf8);
+
+    <T> T deserialize(TypeToken<T> type, Path utf8);
+
+    <T> T deserialize(Class<T> type, Path utf8);
+
+    // one value per line (NDJSON/JSON Lines). The stream is parallel - lines are parsed and bound on the
+    // common fork-join pool. It is ordered (toList(), forEachOrdered(), etc. see the file's order), use
+    // unordered() and forEach() when the order doesn't matter for the best throughput.
+    <T> Stream<T> deserializeLines(TypeToken<T> type, Path utf8);
+
+    <T> Stream<T> deserializeLines(Class<T> type, Path utf8);
+
+    // the elements of a single top-level array, parsed and bound in parallel on the common fork-join pool.
+    // The list is in the array's order - use stream() on it for an ordered stream.
+    <T> List<T> deserializeArray(TypeToken<T> elementType, Path utf8);
+
+    <T> List<T> deserializeArray(Class<T> elementType, Path utf8);
+
+    // a Flow.Processor for streamed input (e.g. an HTTP body). Chunks of UTF-8 are decoded into a stream of
+    // top-level values (NDJSON or concatenated JSON) as they arrive. Downstream demand is propagated upstream:
+    // a chunk is only requested when the values decoded so far have been delivered.
+    <T> Flow.Processor<ByteBuffer, T> deserializingProcessor(TypeToken<T> type);
+
+    <T> Flow.Processor<ByteBuffer, T> deserializingProcessor(Class<T> type);
+
+    // same as deserializingProcessor() but for the elements of a single top-level array
+    <T> Flow.Processor<ByteBuffer, T> deserializingArrayProcessor(TypeToken<T> elementType);
+
+    <T> Flow.Processor<ByteBuffer, T> deserializingArrayProcessor(Class<T> elementType);
+
+    // only the values at the given JSON Pointers (RFC 6901), each deserialized as its type. Everything else
+    // is skipped without being decoded and reading stops once all pointers are found. Pointers that aren't
+    // in the input are missing from the returned map.
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, String json);
+
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, Reader reader);
+
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, byte[] utf8);
+
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, ByteBuffer utf8);
+
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, InputStream utf8);
+
+    Map<String, Object> deserializePointers(Map<String, Type> pointers, Path utf8);
 
     interface Builder
     {
@@ -70,6 +137,17 @@ public interface Json
 
         Builder withDeserializationNaming(JsonNaming naming);
 
+        // object members that a record or JsonClass doesn't declare are skipped instead of failing
+        Builder withIgnoredUnknownFields();
+
+        // see JsonDeserializer.Builder.withSpecializedRecords()
+        Builder withSpecializedRecords();
+
+        Builder withIndexedParsing();
+
+        // numbers are deserialized via LazyNumbers (see JsonReader.withLazyNumbers()) - e.g. for exact BigDecimals
+        Builder withLazyNumbers();
+
         Builder withPrettyPrinting();
 
         Builder withPrettyPrinting(int indent);
@@ -82,7 +160,9 @@ public interface Json
         return new Builder() {
             private final JsonSerializer.Builder serializerBuilder = JsonSerializer.builder();
             private final JsonDeserializer.Builder deserializerBuilder = JsonDeserializer.builder();
-            private JsonParser parser = JsonParser.instance();
+            private Optional<JsonNaming> deserializationNaming = Optional.empty();
+            private boolean indexedParsing;
+            private boolean lazyNumbers;
             private JsonPrinter printer = JsonPrinter.instance();
             private Optional<JsonDateTime> jsonDateTime = Optional.of(JsonDateTime.instance());
             private Cache<Class<?>, RecordComponent[]> recordCache = Cache.simple();
@@ -141,7 +221,35 @@ public interface Json
             @Override
             public Builder withDeserializationNaming(JsonNaming naming)
             {
-                parser = parser.withNaming(naming);
+                deserializationNaming = Optional.of(naming);
+                return this;
+            }
+
+            @Override
+            public Builder withIgnoredUnknownFields()
+            {
+                deserializerBuilder.withIgnoredUnknownFields();
+                return this;
+            }
+
+            @Override
+            public Builder withSpecializedRecords()
+            {
+                deserializerBuilder.withSpecializedRecords();
+                return this;
+            }
+
+            @Override
+            public Builder withIndexedParsing()
+            {
+                indexedParsing = true;
+                return this;
+            }
+
+            @Override
+            public Builder withLazyNumbers()
+            {
+                lazyNumbers = true;
                 return this;
             }
 
@@ -172,6 +280,11 @@ public interface Json
                 });
                 serializerBuilder.withAlternateRecordCache(recordCache);
                 deserializerBuilder.withAlternateRecordCache(recordCache);
+                JsonParser parser = indexedParsing ? JsonParser.indexed() : JsonParser.instance();
+                parser = deserializationNaming.map(parser::withNaming).orElse(parser);
+                if (lazyNumbers) {
+                    parser = parser.withLazyNumbers();
+                }
                 return Json.build(serializerBuilder.build(), deserializerBuilder.build(), parser, printer);
             }
         };
@@ -184,62 +297,222 @@ public interface Json
             @Override
             public String serializeToString(Object o)
             {
-                return serializer.serialize(o).map(printer::print).collect(Collectors.joining());
+                StringBuilder output = new StringBuilder();
+                serializer.serialize(o).forEach(jsonToken -> printer.print(jsonToken, output));
+                return output.toString();
             }
 
             @Override
             public void serializeToWriter(Object o, Writer writer)
             {
-                serializer.serialize(o).map(printer::print).forEach(charSequence -> {
-                    try {
-                        writer.append(charSequence);
-                    }
-                    catch (IOException e) {
-                        throw new UncheckedIOException(e);
+                // tokens are printed into a buffer that is written out in chunks
+                StringBuilder output = new StringBuilder(WRITER_BUFFER_SIZE * 2);
+                serializer.serialize(o).forEach(jsonToken -> {
+                    printer.print(jsonToken, output);
+                    if (output.length() >= WRITER_BUFFER_SIZE) {
+                        write(writer, output);
                     }
                 });
+                write(writer, output);
+            }
+
+            private static void write(Writer writer, StringBuilder output)
+            {
+                try {
+                    writer.append(output);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                output.setLength(0);
             }
 
             @Override
             public <T> T deserialize(TypeToken<T> typeToken, String json)
             {
                 CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, typeToken);
-                return (T) deserialize(collectingConsumer, json);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(json.chars()));
             }
 
             @Override
             public <T> T deserialize(TypeToken<T> type, Reader reader)
             {
                 CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
-                return (T) deserialize(collectingConsumer, reader);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(reader));
             }
 
             @Override
             public <T> T deserialize(Class<T> type, String json)
             {
                 CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
-                return type.cast(deserialize(collectingConsumer, json));
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(json.chars())));
             }
 
             @Override
             public <T> T deserialize(Class<T> type, Reader reader)
             {
                 CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
-                return type.cast(deserialize(collectingConsumer, reader));
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(reader)));
             }
 
-            private <T> T deserialize(CollectingConsumer<T> collectingConsumer, String json)
+            @Override
+            public <T> T deserialize(TypeToken<T> type, byte[] utf8)
             {
-                parser.parse(json.chars()).forEachOrdered(collectingConsumer);
-                return collectingConsumer.value();
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8));
+            }
+
+            @Override
+            public <T> T deserialize(Class<T> type, byte[] utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8)));
+            }
+
+            @Override
+            public <T> T deserialize(TypeToken<T> type, ByteBuffer utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8));
             }
 
-            private <T> T deserialize(CollectingConsumer<T> collectingConsumer, Reader reader)
+            @Override
+            public <T> T deserialize(Class<T> type, ByteBuffer utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8)));
+            }
+
+            @Override
+            public <T> T deserialize(TypeToken<T> type, InputStream utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8));
+            }
+
+            @Override
+            public <T> T deserialize(Class<T> type, InputStream utf8)
             {
-                BufferedReader bufferedReader = new BufferedReader(reader);
-                parser.parse(bufferedReader.lines().flatMapToInt(String::chars)).forEachOrdered(collectingConsumer);
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8)));
+            }
+
+            @Override
+            public <T> T deserialize(TypeToken<T> type, Path utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8));
+            }
+
+            @Override
+            public <T> T deserialize(Class<T> type, Path utf8)
+            {
+                CollectingConsumer<T> collectingConsumer = collectingConsumer(deserializer, type);
+                return type.cast(deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8)));
+            }
+
+            @Override
+            public <T> Stream<T> deserializeLines(TypeToken<T> type, Path utf8)
+            {
+                return StreamSupport.stream(Lines.spliterator(utf8), true)
+                        .map(line -> deserialize(collectingConsumer(deserializer, type), line));
+            }
+
+            @Override
+            public <T> Stream<T> deserializeLines(Class<T> type, Path utf8)
+            {
+                return StreamSupport.stream(Lines.spliterator(utf8), true)
+                        .map(line -> type.cast(deserialize(collectingConsumer(deserializer, type), line)));
+            }
+
+            @Override
+            public <T> List<T> deserializeArray(TypeToken<T> elementType, Path utf8)
+            {
+                return ArrayElements.map(utf8, element -> deserialize(collectingConsumer(deserializer, elementType), element));
+            }
+
+            @Override
+            public <T> List<T> deserializeArray(Class<T> elementType, Path utf8)
+            {
+                return ArrayElements.map(utf8, element -> elementType.cast(deserialize(collectingConsumer(deserializer, elementType), element)));
+            }
+
+            @Override
+            public <T> Flow.Processor<ByteBuffer, T> deserializingProcessor(TypeToken<T> type)
+            {
+                return JsonDeserializerProcessor.values(parser.feeder(), () -> collectingConsumer(deserializer, type));
+            }
+
+            @Override
+            public <T> Flow.Processor<ByteBuffer, T> deserializingProcessor(Class<T> type)
+            {
+                return JsonDeserializerProcessor.values(parser.feeder(), () -> collectingConsumer(deserializer, type));
+            }
+
+            @Override
+            public <T> Flow.Processor<ByteBuffer, T> deserializingArrayProcessor(TypeToken<T> elementType)
+            {
+                return JsonDeserializerProcessor.arrayElements(parser.feeder(), () -> collectingConsumer(deserializer, elementType));
+            }
+
+            @Override
+            public <T> Flow.Processor<ByteBuffer, T> deserializingArrayProcessor(Class<T> elementType)
+            {
+                return JsonDeserializerProcessor.arrayElements(parser.feeder(), () -> collectingConsumer(deserializer, elementType));
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, String json)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(json.chars().iterator()), pointers);
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, Reader reader)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(Chars.iterator(reader)), pointers);
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, byte[] utf8)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(ByteBuffer.wrap(utf8)), pointers);
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, ByteBuffer utf8)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(utf8), pointers);
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, InputStream utf8)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(utf8), pointers);
+            }
+
+            @Override
+            public Map<String, Object> deserializePointers(Map<String, Type> pointers, Path utf8)
+            {
+                return JsonPointers.deserialize(deserializer, parser.reader(utf8), pointers);
+            }
+
+            private <T> T deserialize(CollectingConsumer<T> collectingConsumer, ByteBuffer utf8)
+            {
+                return deserialize(collectingConsumer, parserFor(collectingConsumer).parse(utf8));
+            }
+
+            private <T> T deserialize(CollectingConsumer<T> collectingConsumer, Stream<JsonToken> tokens)
+            {
+                tokens.forEachOrdered(collectingConsumer);
                 return collectingConsumer.value();
             }
+
+            private JsonParser parserFor(CollectingConsumer<?> collectingConsumer)
+            {
+                // values the deserializer doesn't want are skipped by the reader without being tokenized
+                return deserializer.ignoresUnknownFields() ? parser.withValueSkipping(collectingConsumer::skipsValue) : parser;
+            }
         };
     }
 }
@@ -15,6 +15,7 @@
  */
 package io.starburst.json;
 
+import io.starburst.json.JsonDeserializer.DeserializerPlan;
 import io.starburst.json.JsonDeserializer.PredicateDeserializer;
 import io.starburst.json.JsonDeserializer.TypedDeserializer;
 import io.starburst.json.JsonSerializer.ObjectField;
@@ -31,10 +32,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Stream;
 
 import static io.starburst.json.JsonDeserializer.objectTypedDeserializer;
 import static io.starburst.json.JsonDeserializer.simpleTypedDeserializer;
+import static io.starburst.json.JsonDeserializer.slottedObjectTypedDeserializer;
 import static io.starburst.json.JsonSerializer.serializeObject;
 
 public interface JsonClass
@@ -139,21 +142,40 @@ public interface JsonClass
                         return Optional.empty();
                     }
 
+                    @Override
+                    public Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+                    {
+                        return rawType.equals(clazz) ? Optional.of((rootSerializer, o) -> Optional.of(serializeObject(rootSerializer, buildObjectFields(o)))) : Optional.empty();
+                    }
+
                     @Override
                     public Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type maybeType)
                     {
-                        if (type.equals(maybeType)) {
+                        return maybePlan(rootDeserializer, maybeType).map(plan -> plan.deserializer(parentTypedDeserializer));
+                    }
+
+                    @Override
+                    public Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type maybeType)
+                    {
+                        if (!type.equals(maybeType)) {
+                            return Optional.empty();
+                        }
+                        if (builder != null) {
                             Function<String, Type> nameToType = name -> {
                                 Field<T> field = fields.get(name);
-                                if (field == null) {
-                                    throw new RuntimeException();   // TODO
-                                }
-                                return field.type;
+                                return (field != null) ? field.type : null;
                             };
-                            Function<Map<String, Object>, Object> useBuilder = (builder != null) ? builder : makeBuilder();
-                            return Optional.of(objectTypedDeserializer(rootDeserializer, parentTypedDeserializer, nameToType, useBuilder));
+                            return Optional.of(parentTypedDeserializer -> objectTypedDeserializer(rootDeserializer, parentTypedDeserializer, nameToType, builder));
                         }
-                        return Optional.empty();
+                        // members are bound straight to their constructor argument
+                        ToIntFunction<String> nameToSlot = name -> {
+                            Field<T> field = fields.get(name);
+                            return (field != null) ? field.ordinal : -1;
+                        };
+                        Type[] types = new Type[fields.size()];
+                        fields.forEach((__, field) -> types[field.ordinal] = field.type);
+                        Function<Object[], Object> slotBuilder = makeBuilder(constructor);
+                        return Optional.of(parentTypedDeserializer -> slottedObjectTypedDeserializer(rootDeserializer, parentTypedDeserializer, types.length, nameToSlot, slot -> types[slot], slotBuilder));
                     }
                 };
             }
@@ -167,18 +189,9 @@ public interface JsonClass
                         .toList();
             }
 
-            private Function<Map<String, Object>, Object> makeBuilder()
+            private Function<Object[], Object> makeBuilder(Constructor<?> constructor)
             {
-                Constructor<?> constructor = findConstructor();
-                return valuesMap -> {
-                    Object[] arguments = new Object[fields.size()];
-                    valuesMap.forEach((name, value) -> {
-                        Field<T> field = fields.get(name);
-                        if (field == null) {
-                            throw new RuntimeException();   // TODO
-                        }
-                        arguments[field.ordinal] = value;
-                    });
+                return arguments -> {
                     try {
                         return constructor.newInstance(arguments);
                     }
@@ -208,9 +221,15 @@ public interface JsonClass
         return new JsonClass() {
             @Override
             public Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type maybeType)
+            {
+                return maybePlan(rootDeserializer, maybeType).map(plan -> plan.deserializer(parentTypedDeserializer));
+            }
+
+            @Override
+            public Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type maybeType)
             {
                 if (type.equals(maybeType)) {
-                    return Optional.of(simpleTypedDeserializer(parentTypedDeserializer, tokenClass, deserializer::apply));
+                    return Optional.of(parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, tokenClass, deserializer::apply));
                 }
                 return Optional.empty();
             }
@@ -224,6 +243,13 @@ public interface JsonClass
                 }
                 return Optional.empty();
             }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+            {
+                return rawType.equals(clazz) ? Optional.of((rootSerializer, o) -> Optional.of(Stream.of(serializer.apply(rootSerializer, (U) o)))) : Optional.empty();
+            }
         };
     }
 }
\ No newline at end of file
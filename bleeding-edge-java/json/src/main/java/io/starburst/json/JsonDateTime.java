@@ -15,6 +15,7 @@
  */
 package io.starburst.json;
 
+import io.starburst.json.JsonDeserializer.DeserializerPlan;
 import io.starburst.json.JsonDeserializer.PredicateDeserializer;
 import io.starburst.json.JsonDeserializer.TypedDeserializer;
 import io.starburst.json.JsonSerializer.PredicateSerializer;
@@ -33,7 +34,9 @@ import java.time.Year;
 import java.time.YearMonth;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.time.temporal.TemporalQuery;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -83,23 +86,43 @@ public interface JsonDateTime
 
     private static JsonDateTime build(Formatters formatters)
     {
+        // the classes maybeSerialize() handles (all final) - each plan formats without checking the class again
+        Map<Class<?>, PredicateSerializer> serializerPlans = Map.ofEntries(
+                serializerPlan(Instant.class, formatters.fullFormatter),
+                serializerPlan(LocalDate.class, formatters.dateFormatter),
+                serializerPlan(LocalTime.class, formatters.timeFormatter),
+                serializerPlan(LocalDateTime.class, formatters.dateTimeFormatter),
+                serializerPlan(ZonedDateTime.class, formatters.zonedFormatter),
+                serializerPlan(OffsetTime.class, formatters.offsetTimeFormatter),
+                serializerPlan(OffsetDateTime.class, formatters.offsetDateTimeFormatter),
+                serializerPlan(Month.class, formatters.monthFormatter),
+                serializerPlan(YearMonth.class, formatters.yearMonthFormatter),
+                serializerPlan(Year.class, formatters.yearFormatter),
+                Map.entry(Duration.class, (rootSerializer, o) -> Optional.of(Stream.of(new StringToken(o.toString())))));
+
         return new JsonDateTime()
         {
             @Override
             public Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type type)
+            {
+                return maybePlan(rootDeserializer, type).map(plan -> plan.deserializer(parentTypedDeserializer));
+            }
+
+            @Override
+            public Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type type)
             {
                 return switch (type) {
-                    case Class<?> clazz when clazz.equals(Instant.class) -> deserialize(formatters.fullFormatter, parentTypedDeserializer, Instant::from);
-                    case Class<?> clazz when clazz.equals(LocalDate.class) -> deserialize(formatters.dateFormatter, parentTypedDeserializer, LocalDate::from);
-                    case Class<?> clazz when clazz.equals(LocalTime.class) -> deserialize(formatters.timeFormatter, parentTypedDeserializer, LocalTime::from);
-                    case Class<?> clazz when clazz.equals(LocalDateTime.class) -> deserialize(formatters.dateTimeFormatter, parentTypedDeserializer, LocalDateTime::from);
-                    case Class<?> clazz when clazz.equals(ZonedDateTime.class) -> deserialize(formatters.zonedFormatter, parentTypedDeserializer, ZonedDateTime::from);
-                    case Class<?> clazz when clazz.equals(OffsetTime.class) -> deserialize(formatters.offsetTimeFormatter, parentTypedDeserializer, OffsetTime::from);
-                    case Class<?> clazz when clazz.equals(OffsetDateTime.class) -> deserialize(formatters.offsetDateTimeFormatter, parentTypedDeserializer, OffsetDateTime::from);
-                    case Class<?> clazz when clazz.equals(Month.class) -> deserialize(formatters.monthFormatter, parentTypedDeserializer, Month::from);
-                    case Class<?> clazz when clazz.equals(YearMonth.class) -> deserialize(formatters.yearMonthFormatter, parentTypedDeserializer, YearMonth::from);
-                    case Class<?> clazz when clazz.equals(Year.class) -> deserialize(formatters.yearFormatter, parentTypedDeserializer, Year::from);
-                    case Class<?> clazz when clazz.equals(Duration.class) -> Optional.of(simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> Duration.parse(stringToken.value())));
+                    case Class<?> clazz when clazz.equals(Instant.class) -> plan(formatters.fullFormatter, Instant::from);
+                    case Class<?> clazz when clazz.equals(LocalDate.class) -> plan(formatters.dateFormatter, LocalDate::from);
+                    case Class<?> clazz when clazz.equals(LocalTime.class) -> plan(formatters.timeFormatter, LocalTime::from);
+                    case Class<?> clazz when clazz.equals(LocalDateTime.class) -> plan(formatters.dateTimeFormatter, LocalDateTime::from);
+                    case Class<?> clazz when clazz.equals(ZonedDateTime.class) -> plan(formatters.zonedFormatter, ZonedDateTime::from);
+                    case Class<?> clazz when clazz.equals(OffsetTime.class) -> plan(formatters.offsetTimeFormatter, OffsetTime::from);
+                    case Class<?> clazz when clazz.equals(OffsetDateTime.class) -> plan(formatters.offsetDateTimeFormatter, OffsetDateTime::from);
+                    case Class<?> clazz when clazz.equals(Month.class) -> plan(formatters.monthFormatter, Month::from);
+                    case Class<?> clazz when clazz.equals(YearMonth.class) -> plan(formatters.yearMonthFormatter, YearMonth::from);
+                    case Class<?> clazz when clazz.equals(Year.class) -> plan(formatters.yearFormatter, Year::from);
+                    case Class<?> clazz when clazz.equals(Duration.class) -> Optional.of(parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> Duration.parse(stringToken.value())));
                     default -> Optional.empty();
                 };
             }
@@ -107,26 +130,25 @@ public interface JsonDateTime
             @Override
             public Optional<Stream<JsonToken>> maybeSerialize(JsonSerializer rootSerializer, Object o)
             {
-                return switch (o) {
-                    case Instant instant -> Optional.of(Stream.of(new StringToken(formatters.fullFormatter.format(instant))));
-                    case LocalDate localDate -> Optional.of(Stream.of(new StringToken(formatters.dateFormatter.format(localDate))));
-                    case LocalTime localTime -> Optional.of(Stream.of(new StringToken(formatters.timeFormatter.format(localTime))));
-                    case LocalDateTime localDateTime -> Optional.of(Stream.of(new StringToken(formatters.dateTimeFormatter.format(localDateTime))));
-                    case ZonedDateTime zonedDateTime -> Optional.of(Stream.of(new StringToken(formatters.zonedFormatter.format(zonedDateTime))));
-                    case OffsetTime offsetTime -> Optional.of(Stream.of(new StringToken(formatters.offsetTimeFormatter.format(offsetTime))));
-                    case OffsetDateTime offsetDateTime -> Optional.of(Stream.of(new StringToken(formatters.offsetDateTimeFormatter.format(offsetDateTime))));
-                    case Month month -> Optional.of(Stream.of(new StringToken(formatters.monthFormatter.format(month))));
-                    case YearMonth yearMonth -> Optional.of(Stream.of(new StringToken(formatters.yearMonthFormatter.format(yearMonth))));
-                    case Year year -> Optional.of(Stream.of(new StringToken(formatters.yearFormatter.format(year))));
-                    case Duration duration -> Optional.of(Stream.of(new StringToken(duration.toString())));
-                    default -> Optional.empty();
-                };
+                PredicateSerializer serializerPlan = (o == null) ? null : serializerPlans.get(o.getClass());
+                return (serializerPlan == null) ? Optional.empty() : serializerPlan.maybeSerialize(rootSerializer, o);
+            }
+
+            @Override
+            public Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+            {
+                return Optional.ofNullable(serializerPlans.get(clazz));
             }
         };
     }
 
-    private static <T> Optional<TypedDeserializer> deserialize(DateTimeFormatter formatter, TypedDeserializer parentTypedDeserializer, TemporalQuery<T> query)
+    private static <T> Optional<DeserializerPlan> plan(DateTimeFormatter formatter, TemporalQuery<T> query)
+    {
+        return Optional.of(parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> formatter.parse(stringToken.value(), query)));
+    }
+
+    private static Map.Entry<Class<?>, PredicateSerializer> serializerPlan(Class<? extends TemporalAccessor> clazz, DateTimeFormatter formatter)
     {
-        return Optional.of(simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> formatter.parse(stringToken.value(), query)));
+        return Map.entry(clazz, (rootSerializer, o) -> Optional.of(Stream.of(new StringToken(formatter.format((TemporalAccessor) o)))));
     }
 }
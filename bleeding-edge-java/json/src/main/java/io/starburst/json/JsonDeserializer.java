@@ -27,12 +27,17 @@ import io.starburst.json.JsonToken.StringToken;
 import io.starburst.json.JsonToken.ValueSeparatorToken;
 import io.starburst.json.util.Cache;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.GenericArrayType;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.RecordComponent;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -44,7 +49,11 @@ import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,16 +66,44 @@ public interface JsonDeserializer
 
     TypedDeserializer deserializerFor(TypedDeserializer parentTypedDeserializer, Type type);
 
+    // when true object members that the type doesn't know are skipped, otherwise they're an error
+    default boolean ignoresUnknownFields()
+    {
+        return false;
+    }
+
     interface TypedDeserializer
     {
         TypedDeserializer accept(JsonToken jsonToken);
 
         Object value();
+
+        // true when the next value isn't wanted - the parser can skip it without tokenizing and send a NullToken instead
+        default boolean skipsValue()
+        {
+            return false;
+        }
+    }
+
+    // creates the TypedDeserializer for each value of a type that has already been resolved. Only the default
+    // PredicateDeserializer.maybePlan() returns null - the value isn't handled and the next deserializer is tried.
+    @FunctionalInterface
+    interface DeserializerPlan
+    {
+        TypedDeserializer deserializer(TypedDeserializer parentTypedDeserializer);
     }
 
     interface PredicateDeserializer
     {
+        // called for each value unless maybePlan() is overridden
         Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type type);
+
+        // called once per type. A plan is used for every value of the type - implementations that decide by type
+        // alone override this to resolve their work up front. The default plan calls maybeDeserialize() for each value.
+        default Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type type)
+        {
+            return Optional.of(parentTypedDeserializer -> maybeDeserialize(rootDeserializer, parentTypedDeserializer, type).orElse(null));
+        }
     }
 
     interface Builder
@@ -77,6 +114,13 @@ public interface JsonDeserializer
 
         Builder withAlternateRecordCache(Cache<Class<?>, RecordComponent[]> recordCache);
 
+        Builder withIgnoredUnknownFields();
+
+        // records with int, long, double, boolean or String components use a dedicated deserializer that converts
+        // those components from their tokens directly (see SpecializedRecordDeserializer). Custom deserializers for
+        // those types aren't used for such components.
+        Builder withSpecializedRecords();
+
         JsonDeserializer build();
     }
 
@@ -86,6 +130,8 @@ public interface JsonDeserializer
             private final List<PredicateDeserializer> predicateDeserializers = new ArrayList<>();
             private boolean addStandard;
             private Cache<Class<?>, RecordComponent[]> recordCache = Cache.simple();
+            private boolean ignoreUnknownFields;
+            private boolean specializedRecords;
 
             @Override
             public Builder add(PredicateDeserializer predicateSerializer)
@@ -108,14 +154,28 @@ public interface JsonDeserializer
                 return this;
             }
 
+            @Override
+            public Builder withIgnoredUnknownFields()
+            {
+                ignoreUnknownFields = true;
+                return this;
+            }
+
+            @Override
+            public Builder withSpecializedRecords()
+            {
+                specializedRecords = true;
+                return this;
+            }
+
             @Override
             public JsonDeserializer build()
             {
                 List<PredicateDeserializer> work = new ArrayList<>(predicateDeserializers);
                 if (addStandard) {
-                    work.add(standardTypedDeserializer(recordCache));
+                    work.add(standardTypedDeserializer(recordCache, specializedRecords));
                 }
-                return buildDeserializer(Collections.unmodifiableList(work));
+                return buildDeserializer(Collections.unmodifiableList(work), ignoreUnknownFields);
             }
         };
     }
@@ -196,6 +256,48 @@ public interface JsonDeserializer
                 Stream.of(enumClass.getEnumConstants()).filter(c -> c.toString().equals(stringToken.value())).findFirst().orElseThrow(RuntimeException::new));
     }
 
+    // consumes a value that isn't wanted. Parsers that skip values raw send a single NullToken in its place.
+    static TypedDeserializer skippingTypedDeserializer(TypedDeserializer parentTypedDeserializer)
+    {
+        return new TypedDeserializer()
+        {
+            private boolean started;
+            private int depth;
+
+            @Override
+            public String toString()
+            {
+                return "skippingTypedDeserializer";
+            }
+
+            @Override
+            public TypedDeserializer accept(JsonToken jsonToken)
+            {
+                started = true;
+                switch (jsonToken) {
+                    case BeginObjectToken __ -> ++depth;
+                    case BeginArrayToken __ -> ++depth;
+                    case EndObjectToken __ -> --depth;
+                    case EndArrayToken __ -> --depth;
+                    default -> {}
+                }
+                return (depth == 0) ? parentTypedDeserializer : this;
+            }
+
+            @Override
+            public Object value()
+            {
+                return null;
+            }
+
+            @Override
+            public boolean skipsValue()
+            {
+                return !started;
+            }
+        };
+    }
+
     static TypedDeserializer collectionTypedDeserializer(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Class<?> collectionClass, Type componentType)
     {
         return new TypedDeserializer()
@@ -292,10 +394,36 @@ public interface JsonDeserializer
 
     static TypedDeserializer objectTypedDeserializer(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Function<String, Type> nameToType, Function<Map<String, Object>, Object> builder)
     {
-        record NameAndValue(String name, TypedDeserializer value) {}
+        // members get slots in the order they're read
+        List<String> names = new ArrayList<>();
+        List<Type> types = new ArrayList<>();
+        ToIntFunction<String> nameToSlot = name -> {
+            Type type = nameToType.apply(name);
+            if (type == null) {
+                return -1;
+            }
+            names.add(name);
+            types.add(type);
+            return names.size() - 1;
+        };
+        Function<Object[], Object> slotBuilder = values -> {
+            Map<String, Object> mappedValues = new HashMap<>(names.size());
+            for (int i = 0; i < names.size(); ++i) {
+                mappedValues.put(names.get(i), values[i]);
+            }
+            return builder.apply(mappedValues);
+        };
+        return slottedObjectTypedDeserializer(rootDeserializer, parentTypedDeserializer, 8, nameToSlot, types::get, slotBuilder);
+    }
+
+    // binds each member to a slot: nameToSlot gives a name's slot (-1 when the type has no such member) and slotToType
+    // the slot's type. The builder gets the slot values - null for members that weren't in the input. A repeated name
+    // keeps its last value.
+    static TypedDeserializer slottedObjectTypedDeserializer(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, int slotCount, ToIntFunction<String> nameToSlot, IntFunction<Type> slotToType, Function<Object[], Object> builder)
+    {
         return new TypedDeserializer() {
-            private final List<NameAndValue> values = new ArrayList<>();
-            private String currentName;
+            private TypedDeserializer[] slots = new TypedDeserializer[slotCount];
+            private boolean hasName;
             private boolean started;
             private boolean isDone;
 
@@ -319,14 +447,26 @@ public interface JsonDeserializer
                         }
                     }
                     case ObjectNameToken(var name) -> {
-                        if (!started || (currentName != null)) {
+                        if (!started || hasName) {
                             throw new RuntimeException();    // TODO
                         }
-                        currentName = name;
-                        Type type = nameToType.apply(currentName);
-                        TypedDeserializer typedDeserializer = rootDeserializer.deserializerFor(this, type);
-                        values.add(new NameAndValue(currentName, typedDeserializer));
-                        nextTypedDeserializer = typedDeserializer;
+                        hasName = true;
+                        // -1 when the type has no such member
+                        int slot = nameToSlot.applyAsInt(name);
+                        if (slot >= 0) {
+                            if (slot >= slots.length) {
+                                slots = Arrays.copyOf(slots, Math.max(slot + 1, slots.length * 2));
+                            }
+                            TypedDeserializer typedDeserializer = rootDeserializer.deserializerFor(this, slotToType.apply(slot));
+                            slots[slot] = typedDeserializer;
+                            nextTypedDeserializer = typedDeserializer;
+                        }
+                        else if (rootDeserializer.ignoresUnknownFields()) {
+                            nextTypedDeserializer = skippingTypedDeserializer(this);
+                        }
+                        else {
+                            throw new RuntimeException("Unknown field: " + name);
+                        }
                     }
                     case EndObjectToken __ -> {
                         if (!started || isDone) {
@@ -336,10 +476,10 @@ public interface JsonDeserializer
                         isDone = true;
                     }
                     case ValueSeparatorToken __ -> {
-                        if (!started || (currentName == null)) {
+                        if (!started || !hasName) {
                             throw new RuntimeException();   // TODO
                         }
-                        currentName = null;
+                        hasName = false;
                     }
                     default -> throw new RuntimeException();    // TODO
                 }
@@ -352,82 +492,137 @@ public interface JsonDeserializer
                 if (!isDone) {
                     throw new RuntimeException();   // TODO
                 }
-                Map<String, Object> mappedValues = new HashMap<>(values.size());
-                values.forEach(nameAndValue -> mappedValues.put(nameAndValue.name, (nameAndValue.value != null) ? nameAndValue.value.value() : null));
-                return builder.apply(mappedValues);
+                Object[] values = new Object[slots.length];
+                for (int i = 0; i < slots.length; ++i) {
+                    values[i] = (slots[i] != null) ? slots[i].value() : null;
+                }
+                return builder.apply(values);
             }
         };
     }
 
     static TypedDeserializer recordTypedDeserializer(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Class<?> recordClass, Cache<Class<?>, RecordComponent[]> recordCache)
+    {
+        return recordPlan(rootDeserializer, recordClass, recordCache).deserializer(parentTypedDeserializer);
+    }
+
+    // the components and constructor are looked up once - each value only builds its object deserializer. Members
+    // are bound to the slot of their component, and the slots are the arguments of the canonical constructor - a
+    // MethodHandle that takes them as an Object[] so there are no access checks or argument copies per record.
+    static DeserializerPlan recordPlan(JsonDeserializer rootDeserializer, Class<?> recordClass, Cache<Class<?>, RecordComponent[]> recordCache)
     {
         RecordComponent[] recordComponents = recordCache.computeIfAbsent(recordClass, __ -> recordClass.getRecordComponents());
-        Map<String, RecordComponent> recordComponentMap = Stream.of(recordComponents).collect(Collectors.toMap(RecordComponent::getName, Function.identity()));
-        Function<String, Type> nameToType = name -> {
-            RecordComponent recordComponent = recordComponentMap.get(name);
-            if (recordComponent == null) {
-                throw new RuntimeException();   // TODO
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < recordComponents.length; ++i) {
+            slots.put(recordComponents[i].getName(), i);
+        }
+        ToIntFunction<String> nameToSlot = name -> slots.getOrDefault(name, -1);
+        Type[] types = Stream.of(recordComponents).map(RecordComponent::getGenericType).toArray(Type[]::new);
+        Class<?>[] argumentTypes = Stream.of(recordComponents).map(RecordComponent::getType).toArray(Class<?>[]::new);
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(recordClass, MethodType.methodType(void.class, argumentTypes))
+                    .asSpreader(Object[].class, argumentTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new RuntimeException("No accessible canonical constructor for " + recordClass.getName(), e);
+        }
+        Function<Object[], Object> builder = arguments -> {
+            try {
+                return (Object) constructor.invokeExact(arguments);
             }
-            return recordComponent.getGenericType();
-        };
-        Function<Map<String, Object>, Object> builder = valuesMap -> {
-            Class<?>[] argumentTypes = new Class[recordComponents.length];
-            Object[] arguments = new Object[recordComponents.length];
-            for (int i = 0; i < recordComponents.length; ++i) {
-                RecordComponent recordComponent = recordComponents[i];
-                argumentTypes[i] = recordComponent.getType();
-                arguments[i] = valuesMap.get(recordComponent.getName());
+            catch (Error e) {
+                throw e;
             }
-            try {
-                return recordClass.getConstructor(argumentTypes).newInstance(arguments);
+            catch (Throwable e) {
+                throw new RuntimeException("Could not construct " + recordClass.getName(), e);
+            }
+        };
+        return parentTypedDeserializer -> slottedObjectTypedDeserializer(rootDeserializer, parentTypedDeserializer, types.length, nameToSlot, slot -> types[slot], builder);
+    }
+
+    private static PredicateDeserializer standardTypedDeserializer(Cache<Class<?>, RecordComponent[]> recordCache, boolean specializedRecords)
+    {
+        return new PredicateDeserializer()
+        {
+            @Override
+            public Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type type)
+            {
+                return maybePlan(rootDeserializer, type).map(plan -> plan.deserializer(parentTypedDeserializer));
             }
-            catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException | IllegalArgumentException e) {
-                throw new RuntimeException(e);  // TODO
+
+            @Override
+            public Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type type)
+            {
+                return Optional.ofNullable(standardPlan(rootDeserializer, type, recordCache, specializedRecords));
             }
         };
-        return objectTypedDeserializer(rootDeserializer, parentTypedDeserializer, nameToType, builder);
     }
 
-    private static PredicateDeserializer standardTypedDeserializer(Cache<Class<?>, RecordComponent[]> recordCache)
+    // resolves the type once - the returned plan doesn't look at the type again
+    private static DeserializerPlan standardPlan(JsonDeserializer rootDeserializer, Type type, Cache<Class<?>, RecordComponent[]> recordCache, boolean specializedRecords)
     {
-        return (rootDeserializer, parentTypedDeserializer, type) -> {
-            TypedDeserializer typedDeserializer = switch (type) {
-                case Class<?> clazz when clazz.equals(byte.class) || clazz.equals(Byte.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().byteValue());
-                case Class<?> clazz when clazz.equals(short.class) || clazz.equals(Short.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().shortValue());
-                case Class<?> clazz when clazz.equals(int.class) || clazz.equals(Integer.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().intValue());
-                case Class<?> clazz when clazz.equals(long.class) || clazz.equals(Long.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().longValue());
-                case Class<?> clazz when clazz.equals(float.class) || clazz.equals(Float.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().floatValue());
-                case Class<?> clazz when clazz.equals(double.class) || clazz.equals(Double.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().doubleValue());
-                case Class<?> clazz when clazz.equals(boolean.class) || clazz.equals(Boolean.class) -> simpleTypedDeserializer(parentTypedDeserializer, BooleanToken.class, BooleanToken::value);
-                case Class<?> clazz when clazz.equals(UUID.class) -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> UUID.fromString(stringToken.value()));
-                case Class<?> clazz when clazz.equals(OptionalInt.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalInt.of(numberToken.value().intValue()));
-                case Class<?> clazz when clazz.equals(OptionalLong.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalLong.of(numberToken.value().longValue()));
-                case Class<?> clazz when clazz.equals(OptionalDouble.class) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalDouble.of(numberToken.value().doubleValue()));
-                case Class<?> clazz when Number.class.isAssignableFrom(clazz) -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, NumberToken::value);
-                case Class<?> clazz when clazz.equals(String.class) -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, StringToken::value);
-                case ParameterizedType parameterizedType when(parameterizedType.getRawType() instanceof Class<?> clazz) && Collection.class.isAssignableFrom(clazz) -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, clazz, parameterizedType.getActualTypeArguments()[0]);
-                case ParameterizedType parameterizedType when(parameterizedType.getRawType() instanceof Class<?> clazz) && Optional.class.isAssignableFrom(clazz) -> optionalTypedDeserializer(rootDeserializer, parentTypedDeserializer, parameterizedType.getActualTypeArguments()[0]);
-                case Class<?> clazz when clazz.isRecord() -> recordTypedDeserializer(rootDeserializer, parentTypedDeserializer, clazz, recordCache);
-                case Class<?> clazz when clazz.isEnum() -> enumTypedDeserializer(parentTypedDeserializer, clazz);
-                case GenericArrayType genericArrayType -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, Object[].class, genericArrayType.getGenericComponentType());
-                case Class<?> clazz when clazz.isArray() -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, clazz, clazz.getComponentType());
-                default -> null;
-            };
-            return Optional.ofNullable(typedDeserializer);
+        return switch (type) {
+            case Class<?> clazz when clazz.equals(byte.class) || clazz.equals(Byte.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().byteValue());
+            case Class<?> clazz when clazz.equals(short.class) || clazz.equals(Short.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().shortValue());
+            case Class<?> clazz when clazz.equals(int.class) || clazz.equals(Integer.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().intValue());
+            case Class<?> clazz when clazz.equals(long.class) || clazz.equals(Long.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().longValue());
+            case Class<?> clazz when clazz.equals(float.class) || clazz.equals(Float.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().floatValue());
+            case Class<?> clazz when clazz.equals(double.class) || clazz.equals(Double.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> numberToken.value().doubleValue());
+            case Class<?> clazz when clazz.equals(boolean.class) || clazz.equals(Boolean.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, BooleanToken.class, BooleanToken::value);
+            case Class<?> clazz when clazz.equals(UUID.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, stringToken -> UUID.fromString(stringToken.value()));
+            case Class<?> clazz when clazz.equals(OptionalInt.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalInt.of(numberToken.value().intValue()));
+            case Class<?> clazz when clazz.equals(OptionalLong.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalLong.of(numberToken.value().longValue()));
+            case Class<?> clazz when clazz.equals(OptionalDouble.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, numberToken -> OptionalDouble.of(numberToken.value().doubleValue()));
+            case Class<?> clazz when clazz.equals(BigDecimal.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, NumberToken::bigDecimalValue);
+            case Class<?> clazz when clazz.equals(BigInteger.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, NumberToken::bigIntegerValue);
+            case Class<?> clazz when Number.class.isAssignableFrom(clazz) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, NumberToken.class, NumberToken::value);
+            case Class<?> clazz when clazz.equals(String.class) -> parentTypedDeserializer -> simpleTypedDeserializer(parentTypedDeserializer, StringToken.class, StringToken::value);
+            case ParameterizedType parameterizedType when(parameterizedType.getRawType() instanceof Class<?> clazz) && Collection.class.isAssignableFrom(clazz) -> parentTypedDeserializer -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, clazz, parameterizedType.getActualTypeArguments()[0]);
+            case ParameterizedType parameterizedType when(parameterizedType.getRawType() instanceof Class<?> clazz) && Optional.class.isAssignableFrom(clazz) -> parentTypedDeserializer -> optionalTypedDeserializer(rootDeserializer, parentTypedDeserializer, parameterizedType.getActualTypeArguments()[0]);
+            case Class<?> clazz when clazz.isRecord() && specializedRecords -> SpecializedRecordDeserializer.plan(rootDeserializer, clazz, recordCache.computeIfAbsent(clazz, __ -> clazz.getRecordComponents()))
+                    .orElseGet(() -> recordPlan(rootDeserializer, clazz, recordCache));
+            case Class<?> clazz when clazz.isRecord() -> recordPlan(rootDeserializer, clazz, recordCache);
+            case Class<?> clazz when clazz.isEnum() -> parentTypedDeserializer -> enumTypedDeserializer(parentTypedDeserializer, clazz);
+            case GenericArrayType genericArrayType -> parentTypedDeserializer -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, Object[].class, genericArrayType.getGenericComponentType());
+            case Class<?> clazz when clazz.isArray() -> parentTypedDeserializer -> collectionTypedDeserializer(rootDeserializer, parentTypedDeserializer, clazz, clazz.getComponentType());
+            default -> null;
         };
     }
 
-    private static JsonDeserializer buildDeserializer(List<PredicateDeserializer> predicateDeserializers)
+    private static JsonDeserializer buildDeserializer(List<PredicateDeserializer> predicateDeserializers, boolean ignoreUnknownFields)
     {
+        DeserializerPlan declined = __ -> null;
         return new JsonDeserializer()
         {
+            @Override
+            public boolean ignoresUnknownFields()
+            {
+                return ignoreUnknownFields;
+            }
+
+            // a plan per type and predicate deserializer, each resolved when it's first reached - later
+            // deserializers aren't asked about types that an earlier plan always handles
+            private final Map<Type, AtomicReferenceArray<DeserializerPlan>> plans = new ConcurrentHashMap<>();
+
             @Override
             public TypedDeserializer deserializerFor(TypedDeserializer parentTypedDeserializer, Type type)
             {
-                return predicateDeserializers.stream()
-                        .flatMap(predicateDeserializer -> predicateDeserializer.maybeDeserialize(this, parentTypedDeserializer, type).stream())
-                        .findFirst()
-                        .orElseThrow(RuntimeException::new); // TODO
+                AtomicReferenceArray<DeserializerPlan> typePlans = plans.computeIfAbsent(type, __ -> new AtomicReferenceArray<>(predicateDeserializers.size()));
+                for (int i = 0; i < typePlans.length(); ++i) {
+                    DeserializerPlan plan = typePlans.get(i);
+                    if (plan == null) {
+                        // outside of computeIfAbsent() - resolving a plan can resolve other types
+                        plan = predicateDeserializers.get(i).maybePlan(this, type).orElse(declined);
+                        typePlans.set(i, plan);
+                    }
+                    TypedDeserializer typedDeserializer = plan.deserializer(parentTypedDeserializer);
+                    if (typedDeserializer != null) {
+                        return typedDeserializer;
+                    }
+                }
+                throw new RuntimeException("No deserializer for type: " + type);
             }
         };
     }
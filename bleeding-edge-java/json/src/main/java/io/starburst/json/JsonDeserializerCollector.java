@@ -33,6 +33,12 @@ public interface JsonDeserializerCollector
             extends Consumer<JsonToken>
     {
         T value();
+
+        // see TypedDeserializer.skipsValue()
+        default boolean skipsValue()
+        {
+            return false;
+        }
     }
 
     static <T> CollectingConsumer<T> collectingConsumer(JsonDeserializer deserializer, TypeToken<T> type)
@@ -77,6 +83,12 @@ public interface JsonDeserializerCollector
                 }
                 current = current.accept(jsonToken);
             }
+
+            @Override
+            public boolean skipsValue()
+            {
+                return (current != null) && current.skipsValue();
+            }
         };
     }
 
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonDeserializerCollector.CollectingConsumer;
+import io.starburst.json.JsonReader.Event;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// A Flow.Processor that decodes chunks of UTF-8 into values as the chunks arrive. The chunks are fed to a
+// JsonFeeder and its tokens to a CollectingConsumer per value. Values are decoded one at a time and a chunk
+// is only requested from upstream when downstream has demand that the input fed so far can't satisfy - a
+// slow subscriber throttles reading and at most one decoded value (plus the unparsed input) is held.
+// There can be one subscriber.
+public final class JsonDeserializerProcessor<T>
+        implements Flow.Processor<ByteBuffer, T>
+{
+    private final JsonFeeder feeder;
+    private final Supplier<CollectingConsumer<T>> consumers;
+    private final boolean arrayElements;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super T>> downstream = new AtomicReference<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+    private volatile boolean upstreamComplete;
+    private volatile boolean cancelled;
+    // work in progress - the caller that moves it from 0 runs drain() until it falls back to 0
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // only used by the thread running drain()
+    private boolean chunkRequested;
+    private boolean endOfInput;
+    private boolean done;
+    private CollectingConsumer<T> consumer;
+    private T pending;
+    private boolean hasPending;
+    private int depth;
+    private boolean arrayStarted;
+    private boolean arrayEnded;
+    private boolean afterElement;
+    private boolean afterSeparator;
+
+    private JsonDeserializerProcessor(JsonFeeder feeder, Supplier<CollectingConsumer<T>> consumers, boolean arrayElements)
+    {
+        this.feeder = feeder;
+        this.consumers = consumers;
+        this.arrayElements = arrayElements;
+    }
+
+    // a stream of top-level values, e.g. NDJSON or concatenated JSON
+    public static <T> Flow.Processor<ByteBuffer, T> values(JsonFeeder feeder, Supplier<CollectingConsumer<T>> consumers)
+    {
+        return new JsonDeserializerProcessor<>(feeder, consumers, false);
+    }
+
+    // the elements of a single top-level array
+    public static <T> Flow.Processor<ByteBuffer, T> arrayElements(JsonFeeder feeder, Supplier<CollectingConsumer<T>> consumers)
+    {
+        return new JsonDeserializerProcessor<>(feeder, consumers, true);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber)
+    {
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                }
+
+                @Override
+                public void cancel()
+                {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription()
+        {
+            @Override
+            public void request(long n)
+            {
+                JsonDeserializerProcessor.this.request(n);
+            }
+
+            @Override
+            public void cancel()
+            {
+                JsonDeserializerProcessor.this.cancel();
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription)
+    {
+        if (!upstream.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk)
+    {
+        chunks.offer(chunk);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable)
+    {
+        error.compareAndSet(null, throwable);
+        drain();
+    }
+
+    @Override
+    public void onComplete()
+    {
+        upstreamComplete = true;
+        drain();
+    }
+
+    private void request(long n)
+    {
+        if (n <= 0) {
+            error.compareAndSet(null, new IllegalArgumentException("Request must be positive: " + n));
+            cancelUpstream();
+        }
+        else {
+            requested.accumulateAndGet(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+        }
+        drain();
+    }
+
+    private void cancel()
+    {
+        cancelled = true;
+        cancelUpstream();
+    }
+
+    private void cancelUpstream()
+    {
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    // every signal ends up here. Only one thread at a time gets past the wip counter and it loops until no
+    // signal arrived while it was running, so values are decoded and delivered on one thread at a time and
+    // no lock is held while calling the subscriber or upstream - re-entrant calls (e.g. request() from the
+    // subscriber's onNext() or a chunk delivered from within upstream.request()) are picked up by the loop.
+    private void drain()
+    {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            emit();
+            missed = wip.addAndGet(-missed);
+        }
+        while (missed != 0);
+    }
+
+    private void emit()
+    {
+        Flow.Subscriber<? super T> subscriber = downstream.get();
+        if ((subscriber == null) || done) {
+            return;
+        }
+        while (!cancelled) {
+            Throwable throwable = error.get();
+            if (throwable != null) {
+                done = true;
+                subscriber.onError(throwable);
+                return;
+            }
+            Flow.Subscription subscription = upstream.get();
+            if (subscription == null) {
+                return;
+            }
+            if (!hasPending) {
+                // read before polling - no chunk can follow onComplete()
+                boolean complete = upstreamComplete;
+                Event event;
+                try {
+                    event = decodeNext();
+                }
+                catch (RuntimeException e) {
+                    done = true;
+                    subscription.cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+                if (event == Event.END) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (event == Event.NEED_MORE_INPUT) {
+                    ByteBuffer chunk = chunks.poll();
+                    if (chunk != null) {
+                        chunkRequested = false;
+                        feeder.feed(chunk);
+                    }
+                    else if (complete && !endOfInput) {
+                        endOfInput = true;
+                        feeder.endOfInput();
+                    }
+                    else if ((requested.get() == 0) || chunkRequested) {
+                        return;
+                    }
+                    else {
+                        chunkRequested = true;
+                        subscription.request(1);
+                    }
+                    continue;
+                }
+            }
+            if (requested.get() == 0) {
+                return;
+            }
+            T value = pending;
+            pending = null;
+            hasPending = false;
+            requested.getAndUpdate(current -> (current == Long.MAX_VALUE) ? current : current - 1);
+            subscriber.onNext(value);
+        }
+        done = true;
+    }
+
+    // feeds tokens to the consumer until a value is complete (returned as VALUE_SEPARATOR with pending set),
+    // more input is needed or the input has ended
+    private Event decodeNext()
+    {
+        while (true) {
+            Event event = feeder.nextEvent();
+            switch (event) {
+                case NEED_MORE_INPUT -> {
+                    return event;
+                }
+                case END -> {
+                    if ((depth > 0) || (arrayElements && !arrayEnded)) {
+                        throw new RuntimeException("Unexpected end of input");
+                    }
+                    return event;
+                }
+                default -> {
+                    if (arrayElements && !acceptArrayEvent(event)) {
+                        continue;
+                    }
+                    if ((depth == 0) && isClosingOrSeparator(event)) {
+                        throw new RuntimeException("Unexpected token: " + event);
+                    }
+                    if (consumer == null) {
+                        consumer = consumers.get();
+                    }
+                    consumer.accept(feeder.currentToken());
+                    switch (event) {
+                        case BEGIN_OBJECT, BEGIN_ARRAY -> ++depth;
+                        case END_OBJECT, END_ARRAY -> --depth;
+                        default -> {}
+                    }
+                    if (depth == 0) {
+                        pending = consumer.value();
+                        hasPending = true;
+                        consumer = null;
+                        afterElement = true;
+                        return Event.VALUE_SEPARATOR;
+                    }
+                }
+            }
+        }
+    }
+
+    // handles the enclosing array's own events - returns true when the event belongs to an element.
+    // Element depth is counted from the inside of the array.
+    private boolean acceptArrayEvent(Event event)
+    {
+        if (!arrayStarted) {
+            if (event != Event.BEGIN_ARRAY) {
+                throw new RuntimeException("Expected a top-level array");
+            }
+            arrayStarted = true;
+            return false;
+        }
+        if (arrayEnded) {
+            throw new RuntimeException("Unexpected token after the array: " + event);
+        }
+        if (depth > 0) {
+            return true;
+        }
+        switch (event) {
+            case END_ARRAY -> {
+                if (afterSeparator) {
+                    throw new RuntimeException("Expected a value after ','");
+                }
+                arrayEnded = true;
+                return false;
+            }
+            case VALUE_SEPARATOR -> {
+                if (!afterElement) {
+                    throw new RuntimeException("Unexpected ','");
+                }
+                afterElement = false;
+                afterSeparator = true;
+                return false;
+            }
+            default -> {
+                if (afterElement) {
+                    throw new RuntimeException("Expected ',' or ']' not " + event);
+                }
+                afterSeparator = false;
+                return true;
+            }
+        }
+    }
+
+    private static boolean isClosingOrSeparator(Event event)
+    {
+        return (event == Event.END_OBJECT) || (event == Event.END_ARRAY) || (event == Event.VALUE_SEPARATOR);
+    }
+}
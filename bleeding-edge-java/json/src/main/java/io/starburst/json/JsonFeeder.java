@@ -0,0 +1,553 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.util.StringUtils;
+import io.starburst.json.util.SymbolTable;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+// A JsonReader for non-blocking input (NIO, async I/O). UTF-8 input is pushed with feed() as it arrives
+// and nextEvent() returns NEED_MORE_INPUT, instead of blocking, when the next token isn't complete yet.
+// Partial tokens are kept until the rest of them is fed. Call endOfInput() after the last feed.
+// skipValue() is resumable: when the value isn't complete yet the current event is NEED_MORE_INPUT and,
+// after more input is fed, nextEvent() carries on with the skip and returns NULL for the skipped value
+// (or END_ARRAY when it turns out the array was empty).
+public interface JsonFeeder
+        extends JsonReader
+{
+    int INITIAL_BUFFER_SIZE = 8192;
+
+    static JsonFeeder instance()
+    {
+        return instance(INITIAL_BUFFER_SIZE);
+    }
+
+    // the buffer grows past initialBufferSize when a partial token and a feed don't fit
+    static JsonFeeder instance(int initialBufferSize)
+    {
+        return feedStandard(initialBufferSize);
+    }
+
+    // the bytes are copied - the buffer can be reused once feed() returns
+    void feed(ByteBuffer utf8);
+
+    void endOfInput();
+
+    // passes every token that is available to the consumer (e.g. a CollectingConsumer). Returns
+    // NEED_MORE_INPUT when more input has to be fed or END when the input is done.
+    default Event drain(Consumer<? super JsonToken> consumer)
+    {
+        Event event = nextEvent();
+        while ((event != Event.NEED_MORE_INPUT) && (event != Event.END)) {
+            consumer.accept(currentToken());
+            event = nextEvent();
+        }
+        return event;
+    }
+
+    @Override
+    default JsonFeeder withNaming(JsonNaming naming)
+    {
+        return feeding(this, JsonReader.super.withNaming(naming));
+    }
+
+    @Override
+    default JsonFeeder withLazyNumbers()
+    {
+        return feeding(this, JsonReader.super.withLazyNumbers());
+    }
+
+    // input is fed to feeder and read from reader, a wrapper of the feeder
+    private static JsonFeeder feeding(JsonFeeder feeder, JsonReader reader)
+    {
+        return new JsonFeeder()
+        {
+            @Override
+            public void feed(ByteBuffer utf8)
+            {
+                feeder.feed(utf8);
+            }
+
+            @Override
+            public void endOfInput()
+            {
+                feeder.endOfInput();
+            }
+
+            @Override
+            public Event nextEvent()
+            {
+                return reader.nextEvent();
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return reader.currentEvent();
+            }
+
+            @Override
+            public String currentName()
+            {
+                return reader.currentName();
+            }
+
+            @Override
+            public String stringValue()
+            {
+                return reader.stringValue();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return reader.booleanValue();
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                return reader.isIntegral();
+            }
+
+            @Override
+            public int intValue()
+            {
+                return reader.intValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return reader.longValue();
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return reader.doubleValue();
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                return reader.numberValue();
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                return reader.numberText();
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                return reader.skipValue();
+            }
+
+            @Override
+            public JsonToken currentToken()
+            {
+                return reader.currentToken();
+            }
+        };
+    }
+
+    private static JsonFeeder feedStandard(int initialBufferSize)
+    {
+        // values are held in the feeder's buffer and are only valid until the next call to nextEvent()
+        return new JsonFeeder()
+        {
+            private final StringBuilder builder = new StringBuilder();
+            private final char[] scratch = StringUtils.asciiScratch();
+            private final SymbolTable symbols = SymbolTable.bounded();
+            private byte[] input = new byte[initialBufferSize];
+            // a view of input for StringUtils.scanString()
+            private ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+            private int start;
+            private int limit;
+            private boolean isEndOfInput;
+            private Event currentEvent;
+            private String currentName;
+            // how far an incomplete string has been scanned (relative to its opening quote) so it isn't rescanned on every feed
+            private int stringScanned;
+            private boolean stringEscaped;
+            // state of a skipValue() that is waiting for more input
+            private boolean skipping;
+            private boolean skipStarted;
+            private boolean skipInArray;
+            private boolean skipScalar;
+            private boolean skipInString;
+            private boolean skipEscaped;
+            private int skipDepth;
+
+            @Override
+            public void feed(ByteBuffer utf8)
+            {
+                if (isEndOfInput) {
+                    throw new RuntimeException("Input has already ended");
+                }
+                int length = utf8.remaining();
+                if ((limit + length) > input.length) {
+                    // drop what has been consumed and grow if that's not enough
+                    int remaining = limit - start;
+                    byte[] target = ((remaining + length) > input.length) ? new byte[Math.max(input.length * 2, remaining + length)] : input;
+                    System.arraycopy(input, start, target, 0, remaining);
+                    if (target != input) {
+                        input = target;
+                        inputBuffer = ByteBuffer.wrap(input);
+                    }
+                    start = 0;
+                    limit = remaining;
+                }
+                utf8.get(input, limit, length);
+                limit += length;
+            }
+
+            @Override
+            public void endOfInput()
+            {
+                isEndOfInput = true;
+            }
+
+            @Override
+            public Event nextEvent()
+            {
+                currentName = null;
+                if (skipping) {
+                    currentEvent = continueSkip();
+                    return currentEvent;
+                }
+                int position = skipWhitespace(start);
+                if (position == limit) {
+                    start = position;
+                    currentEvent = isEndOfInput ? Event.END : Event.NEED_MORE_INPUT;
+                    return currentEvent;
+                }
+                char c = (char) (input[position] & 0xff);
+                currentEvent = switch (c) {
+                    case '{' -> consume(position, 1, Event.BEGIN_OBJECT);
+                    case '}' -> consume(position, 1, Event.END_OBJECT);
+                    case '[' -> consume(position, 1, Event.BEGIN_ARRAY);
+                    case ']' -> consume(position, 1, Event.END_ARRAY);
+                    case ',' -> consume(position, 1, Event.VALUE_SEPARATOR);
+                    case '"' -> nextString(position);
+                    case 't' -> nextLiteral(position, "true", Event.TRUE);
+                    case 'f' -> nextLiteral(position, "false", Event.FALSE);
+                    case 'n' -> nextLiteral(position, "null", Event.NULL);
+                    case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+', '.', 'e', 'E' -> nextNumber(position);
+                    default -> throw new RuntimeException("Unexpected character: " + c);
+                };
+                return currentEvent;
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return currentEvent;
+            }
+
+            @Override
+            public String currentName()
+            {
+                checkEvent(Event.NAME);
+                if (currentName == null) {
+                    currentName = symbols.symbol(builder);
+                }
+                return currentName;
+            }
+
+            @Override
+            public String stringValue()
+            {
+                checkEvent(Event.STRING);
+                return builder.toString();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return switch (currentEvent) {
+                    case TRUE -> true;
+                    case FALSE -> false;
+                    default -> throw new RuntimeException("Current event is not a boolean: " + currentEvent);
+                };
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.isIntegral(builder);
+            }
+
+            @Override
+            public int intValue()
+            {
+                return (int) longValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : (long) StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.toNumber(builder);
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                checkEvent(Event.NUMBER);
+                return builder;
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                if ((currentEvent != Event.NAME) && (currentEvent != Event.BEGIN_ARRAY) && (currentEvent != Event.VALUE_SEPARATOR)) {
+                    throw new RuntimeException("Current event is %s - there is no value to skip".formatted(currentEvent));
+                }
+                skipping = true;
+                skipStarted = false;
+                skipInArray = (currentEvent == Event.BEGIN_ARRAY);
+                skipScalar = false;
+                skipInString = false;
+                skipEscaped = false;
+                skipDepth = 0;
+                currentName = null;
+                currentEvent = continueSkip();
+                return currentEvent != Event.END_ARRAY;
+            }
+
+            // scans as much of the skipped value as has been fed. Scanned bytes are consumed so a large
+            // skipped value is never held in the buffer.
+            private Event continueSkip()
+            {
+                int position = start;
+                if (!skipStarted) {
+                    position = skipWhitespace(position);
+                    if (position == limit) {
+                        return skipNeedsMoreInput(position);
+                    }
+                    char c = (char) (input[position] & 0xff);
+                    if ((c == ']') && skipInArray) {
+                        skipping = false;
+                        return consume(position, 1, Event.END_ARRAY);
+                    }
+                    if ((c == ',') || (c == ':') || (c == '}') || (c == ']')) {
+                        throw new RuntimeException("Expected a value");
+                    }
+                    skipStarted = true;
+                    skipScalar = (c != '"') && (c != '{') && (c != '[');
+                }
+                if (skipScalar) {
+                    // number or literal - runs up to the next delimiter
+                    while ((position < limit) && !isDelimiter((char) (input[position] & 0xff))) {
+                        ++position;
+                    }
+                    if ((position == limit) && !isEndOfInput) {
+                        return skipNeedsMoreInput(position);
+                    }
+                    skipping = false;
+                    return consume(position, 0, Event.NULL);
+                }
+                for (; position < limit; ++position) {
+                    char c = (char) (input[position] & 0xff);
+                    if (skipInString) {
+                        if (skipEscaped) {
+                            skipEscaped = false;
+                        }
+                        else if (c == '\\') {
+                            skipEscaped = true;
+                        }
+                        else if (c == '"') {
+                            skipInString = false;
+                            if (skipDepth == 0) {
+                                skipping = false;
+                                return consume(position, 1, Event.NULL);
+                            }
+                        }
+                        continue;
+                    }
+                    switch (c) {
+                        case '"' -> skipInString = true;
+                        case '{', '[' -> ++skipDepth;
+                        case '}', ']' -> {
+                            if (--skipDepth == 0) {
+                                skipping = false;
+                                return consume(position, 1, Event.NULL);
+                            }
+                        }
+                        default -> {}
+                    }
+                }
+                return skipNeedsMoreInput(position);
+            }
+
+            private Event skipNeedsMoreInput(int position)
+            {
+                if (isEndOfInput) {
+                    throw new RuntimeException("Unexpected end of stream while skipping value");
+                }
+                start = position;
+                return Event.NEED_MORE_INPUT;
+            }
+
+            private void checkEvent(Event event)
+            {
+                if (currentEvent != event) {
+                    throw new RuntimeException("Current event is %s not %s".formatted(currentEvent, event));
+                }
+            }
+
+            private Event consume(int position, int length, Event event)
+            {
+                start = position + length;
+                return event;
+            }
+
+            // the token at position isn't complete - it's kept for the next feed
+            private Event needMoreInput(int position)
+            {
+                start = position;
+                return Event.NEED_MORE_INPUT;
+            }
+
+            private Event nextString(int position)
+            {
+                int end = findStringEnd(position);
+                if (end < 0) {
+                    if (isEndOfInput) {
+                        throw new RuntimeException("Unexpected end of stream while parsing string");
+                    }
+                    return needMoreInput(position);
+                }
+                // it may be an object name so we have to see the next non-whitespace char
+                int afterString = skipWhitespace(end + 1);
+                if ((afterString == limit) && !isEndOfInput) {
+                    return needMoreInput(position);
+                }
+                stringScanned = 0;
+                stringEscaped = false;
+                // the closing quote at end stops the scan so bytes past it are never looked at
+                StringUtils.scanString(builder, inputBuffer, position + 1, scratch);
+                if ((afterString < limit) && (input[afterString] == ':')) {
+                    return consume(afterString, 1, Event.NAME);
+                }
+                return consume(end, 1, Event.STRING);
+            }
+
+            // position of the closing quote or -1
+            private int findStringEnd(int position)
+            {
+                int index = position + Math.max(stringScanned, 1);
+                boolean escaped = stringEscaped;
+                for (; index < limit; ++index) {
+                    byte b = input[index];
+                    if (escaped) {
+                        escaped = false;
+                    }
+                    else if (b == '\\') {
+                        escaped = true;
+                    }
+                    else if (b == '"') {
+                        // remember it in case the name/value decision needs more input
+                        stringScanned = index - position;
+                        stringEscaped = false;
+                        return index;
+                    }
+                }
+                stringScanned = index - position;
+                stringEscaped = escaped;
+                return -1;
+            }
+
+            private Event nextLiteral(int position, String literal, Event event)
+            {
+                int available = Math.min(limit - position, literal.length());
+                for (int i = 1; i < available; ++i) {
+                    if (input[position + i] != literal.charAt(i)) {
+                        throw new RuntimeException("Unexpected character while parsing literal");
+                    }
+                }
+                if (available < literal.length()) {
+                    if (isEndOfInput) {
+                        throw new RuntimeException("Unexpected character while parsing literal");
+                    }
+                    return needMoreInput(position);
+                }
+                return consume(position, literal.length(), event);
+            }
+
+            private Event nextNumber(int position)
+            {
+                int end = position;
+                while ((end < limit) && isNumberChar(input[end])) {
+                    ++end;
+                }
+                if ((end == limit) && !isEndOfInput) {
+                    // more digits may follow
+                    return needMoreInput(position);
+                }
+                if (end < limit) {
+                    char c = (char) (input[end] & 0xff);
+                    if (!isDelimiter(c)) {
+                        throw new RuntimeException("Unexpected character while parsing number: " + c);
+                    }
+                }
+                builder.setLength(0);
+                for (int i = position; i < end; ++i) {
+                    builder.append((char) input[i]);
+                }
+                StringUtils.checkNumber(builder);
+                return consume(end, 0, Event.NUMBER);
+            }
+
+            private int skipWhitespace(int position)
+            {
+                while ((position < limit) && StringUtils.isWhitespace((char) (input[position] & 0xff))) {
+                    ++position;
+                }
+                return position;
+            }
+
+            private static boolean isDelimiter(char c)
+            {
+                return (c == ',') || (c == '}') || (c == ']') || StringUtils.isWhitespace(c);
+            }
+
+            private static boolean isNumberChar(byte b)
+            {
+                return ((b >= '0') && (b <= '9')) || (b == '-') || (b == '+') || (b == '.') || (b == 'e') || (b == 'E');
+            }
+        };
+    }
+}
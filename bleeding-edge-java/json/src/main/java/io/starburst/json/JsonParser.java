@@ -15,149 +15,302 @@
  */
 package io.starburst.json;
 
-import io.starburst.json.JsonToken.BeginArrayToken;
-import io.starburst.json.JsonToken.BeginObjectToken;
-import io.starburst.json.JsonToken.BooleanToken;
-import io.starburst.json.JsonToken.EndArrayToken;
-import io.starburst.json.JsonToken.EndObjectToken;
 import io.starburst.json.JsonToken.NullToken;
-import io.starburst.json.JsonToken.NumberToken;
 import io.starburst.json.JsonToken.ObjectNameToken;
-import io.starburst.json.JsonToken.StringToken;
-import io.starburst.json.JsonToken.ValueSeparatorToken;
-import io.starburst.json.util.StringUtils;
+import io.starburst.json.util.Chars;
+import io.starburst.json.util.Utf8;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.PrimitiveIterator;
+import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public interface JsonParser
 {
+    // byte input is read as bytes - see JsonReader.of(ByteBuffer)
     static JsonParser instance()
     {
-        return JsonParser::parseStandard;
+        return reading(JsonReader::of);
+    }
+
+    // byte buffer input is parsed via a structural index. Other inputs use the standard parser.
+    static JsonParser indexed()
+    {
+        return reading(JsonReader::indexed);
+    }
+
+    // indexed() with plain ASCII string values of byte input streamed as views of the input rather than
+    // copies (see JsonReader.slicing()) - e.g. for filtering or re-printing without copying string content
+    static JsonParser slicing()
+    {
+        return reading(JsonReader::slicing);
     }
 
     Stream<JsonToken> parse(IntStream stream);
 
-    default JsonParser withNaming(JsonNaming naming)
+    // the parsers above override these to read each input with a JsonReader. Otherwise all input
+    // is decoded to chars for parse(IntStream).
+    default Stream<JsonToken> parse(PrimitiveIterator.OfInt iterator)
+    {
+        return parse(StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false));
+    }
+
+    default Stream<JsonToken> parse(Reader reader)
+    {
+        return parse(Chars.iterator(reader));
+    }
+
+    default Stream<JsonToken> parse(byte[] utf8)
+    {
+        return parse(ByteBuffer.wrap(utf8));
+    }
+
+    default Stream<JsonToken> parse(ByteBuffer utf8)
     {
-        return stream -> parse(stream)
-                .map(token -> switch (token) {
-                    case ObjectNameToken(var name) -> new ObjectNameToken(naming.apply(name));
-                    default -> token;
-                });
+        return parse(Utf8.iterator(utf8));
     }
 
-    static Stream<JsonToken> parseStandard(IntStream stream)
+    default Stream<JsonToken> parse(InputStream utf8)
     {
-        Iterator<JsonToken> tokenIterator = new Iterator<>() {
-            private final PrimitiveIterator.OfInt iterator = stream.iterator();
-            private final StringBuilder builder = new StringBuilder();
-            private final LinkedList<JsonToken> tokens = new LinkedList<>();
-            private int pushedBack = -1;
+        return parse(Utf8.iterator(utf8));
+    }
+
+    default Stream<JsonToken> parse(Path utf8)
+    {
+        return parse(Utf8.iterator(utf8));
+    }
+
+    // cursors over the input. Parsers that only implement parse(IntStream) get the standard readers.
+    default JsonReader reader(PrimitiveIterator.OfInt iterator)
+    {
+        return JsonReader.of(iterator);
+    }
+
+    default JsonReader reader(ByteBuffer utf8)
+    {
+        return JsonReader.of(utf8);
+    }
+
+    default JsonReader reader(InputStream utf8)
+    {
+        return JsonReader.of(utf8);
+    }
+
+    default JsonReader reader(Path utf8)
+    {
+        return JsonReader.of(utf8);
+    }
 
+    // for input that is pushed rather than pulled
+    default JsonFeeder feeder()
+    {
+        return JsonFeeder.instance();
+    }
+
+    default JsonParser withNaming(JsonNaming naming)
+    {
+        UnaryOperator<Stream<JsonToken>> rename = tokens -> tokens.map(token -> switch (token) {
+            case ObjectNameToken(var name) -> ObjectNameToken.of(naming.apply(name));
+            default -> token;
+        });
+        return new JsonParser()
+        {
+            @Override
+            public Stream<JsonToken> parse(IntStream stream)
             {
-                advanceToNextToken();
+                return rename.apply(JsonParser.this.parse(stream));
             }
 
             @Override
-            public boolean hasNext()
+            public Stream<JsonToken> parse(PrimitiveIterator.OfInt iterator)
             {
-                return !tokens.isEmpty();
+                return rename.apply(JsonParser.this.parse(iterator));
             }
 
             @Override
-            public JsonToken next()
+            public Stream<JsonToken> parse(ByteBuffer utf8)
             {
-                if (tokens.isEmpty()) {
-                    throw new RuntimeException();
-                }
-                JsonToken result = tokens.removeFirst();
-                advanceToNextToken();
-                return result;
+                return rename.apply(JsonParser.this.parse(utf8));
+            }
+
+            @Override
+            public Stream<JsonToken> parse(InputStream utf8)
+            {
+                return rename.apply(JsonParser.this.parse(utf8));
             }
 
-            private void advanceToNextToken()
+            @Override
+            public Stream<JsonToken> parse(Path utf8)
             {
-                if (pushedBack < 0) {
-                    pushedBack = advanceWhitespace(iterator);
-                }
+                return rename.apply(JsonParser.this.parse(utf8));
+            }
 
-                String possibleObjectName = null;
-                JsonToken nextToken = null;
-                while ((nextToken == null) && ((pushedBack >= 0) || iterator.hasNext())) {
-                    char c = (char) (((pushedBack >= 0) ? pushedBack : iterator.nextInt()) & 0xffff);
-                    pushedBack = -1;
-                    nextToken = switch (c) {
-                        case '{' -> new BeginObjectToken();
-                        case '}' -> new EndObjectToken();
-                        case '[' -> new BeginArrayToken();
-                        case ']' -> new EndArrayToken();
-                        case ',' -> new ValueSeparatorToken();
-                        case '"' -> {
-                            if (possibleObjectName != null) {
-                                throw new RuntimeException();   // can't have more than one string
-                            }
-                            possibleObjectName = StringUtils.parseString(builder, iterator);    // it may be an object name so we have to keep parsing
-                            yield null;
-                        }
-                        case 't' -> parseLiteral(iterator, "rue", new BooleanToken(true));
-                        case 'f' -> parseLiteral(iterator, "alse", new BooleanToken(false));
-                        case 'n' -> parseLiteral(iterator, "ull", new NullToken());
-                        case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+', '.', 'e', 'E' -> new NumberToken(StringUtils.parseNumber(builder, c, iterator, i -> pushedBack = i));
-                        case ':' -> {
-                            if (possibleObjectName == null) {
-                                throw new RuntimeException();
-                            }
-                            ObjectNameToken objectNameToken = new ObjectNameToken(possibleObjectName);
-                            possibleObjectName = null;
-                            yield objectNameToken;
-                        }
-                        default -> {
-                            if (StringUtils.isWhitespace(c)) {
-                                yield null; // ignore whitespace between tokens
-                            }
-                            throw new RuntimeException();   // unexpected character
-                        }
-                    };
-                }
-                if (possibleObjectName != null) {
-                    // wasn't an object name - we now have to emit this string token first
-                    tokens.add(new StringToken(possibleObjectName));
+            @Override
+            public JsonReader reader(PrimitiveIterator.OfInt iterator)
+            {
+                return JsonParser.this.reader(iterator).withNaming(naming);
+            }
+
+            @Override
+            public JsonReader reader(ByteBuffer utf8)
+            {
+                return JsonParser.this.reader(utf8).withNaming(naming);
+            }
+
+            @Override
+            public JsonReader reader(InputStream utf8)
+            {
+                return JsonParser.this.reader(utf8).withNaming(naming);
+            }
+
+            @Override
+            public JsonReader reader(Path utf8)
+            {
+                return JsonParser.this.reader(utf8).withNaming(naming);
+            }
+
+            @Override
+            public JsonFeeder feeder()
+            {
+                return JsonParser.this.feeder().withNaming(naming);
+            }
+        };
+    }
+
+    // see JsonReader.withLazyNumbers(). All input is parsed with this parser's readers.
+    default JsonParser withLazyNumbers()
+    {
+        return wrapReaders(this, JsonReader::withLazyNumbers, JsonFeeder::withLazyNumbers, () -> false);
+    }
+
+    // after each name the token consumer is asked (via skipValue) if it wants the name's value. Values it
+    // doesn't want are skipped by the reader without being decoded and are streamed as a single NullToken.
+    // All input is parsed with this parser's readers.
+    default JsonParser withValueSkipping(BooleanSupplier skipValue)
+    {
+        return wrapReaders(this, UnaryOperator.identity(), UnaryOperator.identity(), skipValue);
+    }
+
+    static Stream<JsonToken> tokenStream(JsonReader reader)
+    {
+        return tokenStream(reader, () -> false);
+    }
+
+    static Stream<JsonToken> tokenStream(JsonReader reader, BooleanSupplier skipValue)
+    {
+        Spliterator<JsonToken> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL)
+        {
+            @Override
+            public boolean tryAdvance(Consumer<? super JsonToken> action)
+            {
+                // the name token has been consumed by now so the consumer knows whether it wants the value
+                if ((reader.currentEvent() == JsonReader.Event.NAME) && skipValue.getAsBoolean()) {
+                    reader.skipValue();
+                    action.accept(NullToken.INSTANCE);
+                    return true;
                 }
-                if (nextToken != null) {
-                    tokens.add(nextToken);
+                if (reader.nextEvent() == JsonReader.Event.END) {
+                    return false;
                 }
+                action.accept(reader.currentToken());
+                return true;
             }
         };
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tokenIterator, 0), false);
+        return StreamSupport.stream(spliterator, false);
     }
 
-    private static JsonToken parseLiteral(PrimitiveIterator.OfInt iterator, String remaining, JsonToken token)
+    private static JsonParser reading(Function<ByteBuffer, JsonReader> bufferReader)
     {
-        for (int i = 0; i < remaining.length(); ++i) {
-            char c = (char) (iterator.nextInt() & 0xffff);
-            if (c != remaining.charAt(i)) {
-                throw new RuntimeException();
+        return wrapReaders(new JsonParser()
+        {
+            @Override
+            public Stream<JsonToken> parse(IntStream stream)
+            {
+                return tokenStream(reader(stream.iterator()));
+            }
+
+            @Override
+            public JsonReader reader(ByteBuffer utf8)
+            {
+                return bufferReader.apply(utf8);
             }
-        }
-        return token;
+        }, UnaryOperator.identity(), UnaryOperator.identity(), () -> false);
     }
 
-    private static int advanceWhitespace(PrimitiveIterator.OfInt iterator)
+    // parses every input with parser's readers, each wrapped by readerWrapper
+    private static JsonParser wrapReaders(JsonParser parser, UnaryOperator<JsonReader> readerWrapper, UnaryOperator<JsonFeeder> feederWrapper, BooleanSupplier skipValue)
     {
-        while (iterator.hasNext()) {
-            int i = iterator.nextInt();
-            char c = (char) (i & 0xffff);
-            if (!StringUtils.isWhitespace(c)) {
-                return i;
+        return new JsonParser()
+        {
+            @Override
+            public Stream<JsonToken> parse(IntStream stream)
+            {
+                return parse(stream.iterator());
+            }
+
+            @Override
+            public Stream<JsonToken> parse(PrimitiveIterator.OfInt iterator)
+            {
+                return tokenStream(reader(iterator), skipValue);
             }
-        }
-        return -1;
+
+            @Override
+            public Stream<JsonToken> parse(ByteBuffer utf8)
+            {
+                return tokenStream(reader(utf8), skipValue);
+            }
+
+            @Override
+            public Stream<JsonToken> parse(InputStream utf8)
+            {
+                return tokenStream(reader(utf8), skipValue);
+            }
+
+            @Override
+            public Stream<JsonToken> parse(Path utf8)
+            {
+                return tokenStream(reader(utf8), skipValue);
+            }
+
+            @Override
+            public JsonReader reader(PrimitiveIterator.OfInt iterator)
+            {
+                return readerWrapper.apply(parser.reader(iterator));
+            }
+
+            @Override
+            public JsonReader reader(ByteBuffer utf8)
+            {
+                return readerWrapper.apply(parser.reader(utf8));
+            }
+
+            @Override
+            public JsonReader reader(InputStream utf8)
+            {
+                return readerWrapper.apply(parser.reader(utf8));
+            }
+
+            @Override
+            public JsonReader reader(Path utf8)
+            {
+                return readerWrapper.apply(parser.reader(utf8));
+            }
+
+            @Override
+            public JsonFeeder feeder()
+            {
+                return feederWrapper.apply(parser.feeder());
+            }
+        };
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonDeserializer.TypedDeserializer;
+import io.starburst.json.JsonReader.Event;
+import io.starburst.json.JsonToken.NullToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Deserializes only the values at a set of JSON Pointers (RFC 6901). The input is walked with a JsonReader:
+// values that aren't on the path to a pointer are skipped raw (see JsonReader.skipValue()) and the values
+// at the pointers are fed, token by token, to the standard TypedDeserializers. Reading stops as soon as
+// every pointer has been resolved so the rest of the input is never looked at.
+public interface JsonPointers
+{
+    // returns pointer -> value for each pointer that exists in the input
+    static Map<String, Object> deserialize(JsonDeserializer deserializer, JsonReader reader, Map<String, Type> pointers)
+    {
+        Node root = new Node();
+        pointers.forEach((pointer, type) -> root.add(pointer, parse(pointer), 0, type));
+        Map<String, Object> values = new HashMap<>();
+        if (!pointers.isEmpty() && (reader.nextEvent() != Event.END)) {
+            walk(deserializer, reader, root, values, pointers.size());
+        }
+        return values;
+    }
+
+    // the pointer's reference tokens, unescaped
+    static List<String> parse(String pointer)
+    {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new RuntimeException("JSON Pointer must be empty or start with '/': " + pointer);
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 1; i <= pointer.length(); ++i) {
+            char c = (i < pointer.length()) ? pointer.charAt(i) : '/';
+            switch (c) {
+                case '/' -> {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+                case '~' -> {
+                    char escaped = (++i < pointer.length()) ? pointer.charAt(i) : 0;
+                    switch (escaped) {
+                        case '0' -> token.append('~');
+                        case '1' -> token.append('/');
+                        default -> throw new RuntimeException("Invalid escape in JSON Pointer: " + pointer);
+                    }
+                }
+                default -> token.append(c);
+            }
+        }
+        return tokens;
+    }
+
+    // the reader is on the first event of the node's value. Returns the number of pointers resolved.
+    // Stops once all "total" pointers are in "values".
+    private static int walk(JsonDeserializer deserializer, JsonReader reader, Node node, Map<String, Object> values, int total)
+    {
+        if (node.pointer != null) {
+            values.put(node.pointer, deserializeValue(deserializer, reader, node.type));
+            node.pending = 0;
+            return 1;
+        }
+        int resolved = 0;
+        switch (reader.currentEvent()) {
+            case BEGIN_OBJECT -> {
+                Event event = reader.nextEvent();
+                while (event != Event.END_OBJECT) {
+                    expect(event, Event.NAME);
+                    Node child = node.members.get(reader.currentName());
+                    if ((child != null) && (child.pending > 0)) {
+                        reader.nextEvent();
+                        int childResolved = walk(deserializer, reader, child, values, total);
+                        resolved += childResolved;
+                        node.pending -= childResolved;
+                        if (values.size() == total) {
+                            return resolved;
+                        }
+                    }
+                    else {
+                        reader.skipValue();
+                    }
+                    event = reader.nextEvent();
+                    if (event == Event.VALUE_SEPARATOR) {
+                        event = reader.nextEvent();
+                        expect(event, Event.NAME);
+                    }
+                    else {
+                        expect(event, Event.END_OBJECT);
+                    }
+                }
+            }
+            case BEGIN_ARRAY -> {
+                for (int index = 0; ; ++index) {
+                    Node child = (index <= node.maxIndex) ? node.elements.get(index) : null;
+                    if ((child != null) && (child.pending > 0)) {
+                        if (reader.nextEvent() == Event.END_ARRAY) {
+                            if (index > 0) {
+                                throw new RuntimeException("Expected a value after ','");
+                            }
+                            break;
+                        }
+                        int childResolved = walk(deserializer, reader, child, values, total);
+                        resolved += childResolved;
+                        node.pending -= childResolved;
+                        if (values.size() == total) {
+                            return resolved;
+                        }
+                    }
+                    else if (!reader.skipValue()) {
+                        break;
+                    }
+                    Event event = reader.nextEvent();
+                    if (event != Event.VALUE_SEPARATOR) {
+                        expect(event, Event.END_ARRAY);
+                        break;
+                    }
+                }
+            }
+            default -> {
+                // a scalar - none of the pointers below the node exist
+            }
+        }
+        return resolved;
+    }
+
+    private static Object deserializeValue(JsonDeserializer deserializer, JsonReader reader, Type type)
+    {
+        TypedDeserializer root = new TypedDeserializer()
+        {
+            @Override
+            public TypedDeserializer accept(JsonToken jsonToken)
+            {
+                throw new RuntimeException("Unexpected token after value: " + jsonToken);
+            }
+
+            @Override
+            public Object value()
+            {
+                throw new UnsupportedOperationException("The root of a JSON Pointer value has no value");
+            }
+        };
+        TypedDeserializer typedDeserializer = deserializer.deserializerFor(root, type);
+        TypedDeserializer current = typedDeserializer.accept(reader.currentToken());
+        while (current != root) {
+            // unknown members are skipped the same way the token stream does it
+            if ((reader.currentEvent() == Event.NAME) && current.skipsValue()) {
+                reader.skipValue();
+                current = current.accept(NullToken.INSTANCE);
+            }
+            else {
+                reader.nextEvent();
+                current = current.accept(reader.currentToken());
+            }
+        }
+        return typedDeserializer.value();
+    }
+
+    private static void expect(Event event, Event expected)
+    {
+        if (event != expected) {
+            throw new RuntimeException("Expected %s not %s".formatted(expected, event));
+        }
+    }
+
+    // a trie of the pointers' reference tokens. Tokens that are array indexes are also kept by index.
+    // Only deserialize() creates them - nothing on it is public.
+    final class Node
+    {
+        private final Map<String, Node> members = new HashMap<>();
+        private final Map<Integer, Node> elements = new HashMap<>();
+        private int maxIndex = -1;
+        private String pointer;
+        private Type type;
+        private int pending;
+
+        private Node() {}
+
+        private void add(String pointer, List<String> tokens, int depth, Type type)
+        {
+            if ((this.pointer != null) || ((depth == tokens.size()) && (pending > 0))) {
+                throw new RuntimeException("JSON Pointers can't be nested: " + pointer);
+            }
+            ++pending;
+            if (depth == tokens.size()) {
+                this.pointer = pointer;
+                this.type = type;
+                return;
+            }
+            String token = tokens.get(depth);
+            Node child = members.computeIfAbsent(token, __ -> new Node());
+            if (isIndex(token)) {
+                int index = Integer.parseInt(token);
+                elements.put(index, child);
+                maxIndex = Math.max(maxIndex, index);
+            }
+            child.add(pointer, tokens, depth + 1, type);
+        }
+
+        private static boolean isIndex(String token)
+        {
+            // "0" or digits without a leading zero
+            if (token.isEmpty() || (token.length() > 9) || ((token.length() > 1) && (token.charAt(0) == '0'))) {
+                return false;
+            }
+            return token.chars().allMatch(c -> (c >= '0') && (c <= '9'));
+        }
+    }
+}
@@ -23,32 +23,76 @@ import io.starburst.json.JsonToken.EndObjectToken;
 import io.starburst.json.JsonToken.NullToken;
 import io.starburst.json.JsonToken.NumberToken;
 import io.starburst.json.JsonToken.ObjectNameToken;
+import io.starburst.json.JsonToken.StringSliceToken;
 import io.starburst.json.JsonToken.StringToken;
 import io.starburst.json.JsonToken.ValueSeparatorToken;
+import io.starburst.json.util.NumberPrinter;
 import io.starburst.json.util.StringUtils;
 
 public interface JsonPrinter
 {
     static JsonPrinter instance()
     {
-        return JsonPrinter::printStandard;
+        return new JsonPrinter()
+        {
+            @Override
+            public CharSequence print(JsonToken jsonToken)
+            {
+                return printStandard(jsonToken);
+            }
+
+            @Override
+            public void print(JsonToken jsonToken, StringBuilder output)
+            {
+                printStandard(jsonToken, output);
+            }
+        };
     }
 
     CharSequence print(JsonToken jsonToken);
 
+    // appends the token to output - printers that write in place override this so that nothing is allocated per token
+    default void print(JsonToken jsonToken, StringBuilder output)
+    {
+        output.append(print(jsonToken));
+    }
+
     default JsonPrinter withNaming(JsonNaming naming)
     {
-        return jsonToken -> switch (jsonToken) {
-            case ObjectNameToken(var name) -> JsonPrinter.this.print(new ObjectNameToken(naming.apply(name)));
-            default -> JsonPrinter.this.print(jsonToken);
+        return new JsonPrinter()
+        {
+            @Override
+            public CharSequence print(JsonToken jsonToken)
+            {
+                return JsonPrinter.this.print(applyNaming(jsonToken));
+            }
+
+            @Override
+            public void print(JsonToken jsonToken, StringBuilder output)
+            {
+                JsonPrinter.this.print(applyNaming(jsonToken), output);
+            }
+
+            private JsonToken applyNaming(JsonToken jsonToken)
+            {
+                return switch (jsonToken) {
+                    case ObjectNameToken(var name) -> ObjectNameToken.of(naming.apply(name));
+                    default -> jsonToken;
+                };
+            }
         };
     }
 
     static CharSequence printStandard(JsonToken jsonToken)
     {
         return switch (jsonToken) {
-            case NumberToken(var number) -> number.toString();
+            case NumberToken __ -> {
+                StringBuilder output = new StringBuilder();
+                printStandard(jsonToken, output);
+                yield output;
+            }
             case StringToken(var string) -> StringUtils.quoteAndEscape(string, false);
+            case StringSliceToken(var chars) -> StringUtils.quoteAndEscape(chars, false);
             case BooleanToken(var value) -> value ? "true" : "false";
             case NullToken __ -> "null";
             case BeginArrayToken __ -> "[";
@@ -59,6 +103,24 @@ public interface JsonPrinter
             case ValueSeparatorToken __ -> ",";
         };
     }
+
+    static void printStandard(JsonToken jsonToken, StringBuilder output)
+    {
+        switch (jsonToken) {
+            case NumberToken(var number) -> NumberPrinter.append(output, number);
+            case StringToken(var string) -> StringUtils.quoteAndEscape(string, false, output);
+            case StringSliceToken(var chars) -> StringUtils.quoteAndEscape(chars, false, output);
+            case BooleanToken(var value) -> output.append(value ? "true" : "false");
+            case NullToken __ -> output.append("null");
+            case BeginArrayToken __ -> output.append('[');
+            case EndArrayToken __ -> output.append(']');
+            case BeginObjectToken __ -> output.append('{');
+            case EndObjectToken __ -> output.append('}');
+            case ObjectNameToken(var name) -> StringUtils.quoteAndEscape(name, true, output);
+            case ValueSeparatorToken __ -> output.append(',');
+        }
+    }
+
     default JsonPrinter pretty()
     {
         return pretty(2);
@@ -66,48 +128,61 @@ public interface JsonPrinter
 
     default JsonPrinter pretty(int indent)
     {
-        var context = new Object() {
-            int currentLevel;
-            JsonToken previousJsonToken;
-        };
-        return jsonToken -> {
-            boolean addNewLineAndIndent = false;
-            boolean addSpace = false;
-            switch (context.previousJsonToken) {
-                case ObjectNameToken __ -> addSpace = true;
-                case BeginObjectToken __ -> {
-                    ++context.currentLevel;
-                    addNewLineAndIndent = true;
+        return new JsonPrinter()
+        {
+            private int currentLevel;
+            private JsonToken previousJsonToken;
+
+            @Override
+            public CharSequence print(JsonToken jsonToken)
+            {
+                StringBuilder output = new StringBuilder();
+                print(jsonToken, output);
+                return output;
+            }
+
+            @Override
+            public void print(JsonToken jsonToken, StringBuilder output)
+            {
+                boolean addNewLineAndIndent = false;
+                boolean addSpace = false;
+                switch (previousJsonToken) {
+                    case ObjectNameToken __ -> addSpace = true;
+                    case BeginObjectToken __ -> {
+                        ++currentLevel;
+                        addNewLineAndIndent = true;
+                    }
+                    case BeginArrayToken __ -> {
+                        ++currentLevel;
+                        addNewLineAndIndent = true;
+                    }
+                    case ValueSeparatorToken __ -> addNewLineAndIndent = true;
+                    case null -> {}
+                    default -> {}
                 }
-                case BeginArrayToken __ -> {
-                    ++context.currentLevel;
-                    addNewLineAndIndent = true;
+                switch (jsonToken) {
+                    case EndArrayToken __ -> {
+                        --currentLevel;
+                        addNewLineAndIndent = true;
+                    }
+                    case EndObjectToken __ -> {
+                        --currentLevel;
+                        addNewLineAndIndent = true;
+                    }
+                    default -> {}
                 }
-                case ValueSeparatorToken __ -> addNewLineAndIndent = true;
-                case null -> {}
-                default -> {}
-            }
-            switch (jsonToken) {
-                case EndArrayToken __ -> {
-                    --context.currentLevel;
-                    addNewLineAndIndent = true;
+                previousJsonToken = jsonToken;
+                if (addNewLineAndIndent) {
+                    output.append('\n');
+                    for (int i = currentLevel * indent; i > 0; --i) {
+                        output.append(' ');
+                    }
                 }
-                case EndObjectToken __ -> {
-                    --context.currentLevel;
-                    addNewLineAndIndent = true;
+                else if (addSpace) {
+                    output.append(' ');
                 }
-                default -> {}
-            }
-            JsonToken previousJsonToken = context.previousJsonToken;
-            context.previousJsonToken = jsonToken;
-            CharSequence value = print(jsonToken);
-            if (addNewLineAndIndent) {
-                return "\n" + " ".repeat(context.currentLevel * indent) + value;
-            }
-            if (addSpace) {
-                return " " + value;
+                JsonPrinter.this.print(jsonToken, output);
             }
-            return value;
         };
     }
 }
@@ -0,0 +1,987 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.BeginArrayToken;
+import io.starburst.json.JsonToken.BeginObjectToken;
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.EndArrayToken;
+import io.starburst.json.JsonToken.EndObjectToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.ObjectNameToken;
+import io.starburst.json.JsonToken.StringSliceToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.JsonToken.ValueSeparatorToken;
+import io.starburst.json.util.AsciiSlice;
+import io.starburst.json.util.BlockClassifier;
+import io.starburst.json.util.Chars;
+import io.starburst.json.util.StringUtils;
+import io.starburst.json.util.StructuralIndex;
+import io.starburst.json.util.SymbolTable;
+import io.starburst.json.util.Utf8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+public interface JsonReader
+{
+    // how much byte input is fed at a time to the reader of byte input (see readChunks())
+    int CHUNK_SIZE = 2048;
+
+    enum Event
+    {
+        BEGIN_OBJECT,
+        END_OBJECT,
+        BEGIN_ARRAY,
+        END_ARRAY,
+        VALUE_SEPARATOR,
+        NAME,
+        STRING,
+        NUMBER,
+        TRUE,
+        FALSE,
+        NULL,
+        // only from a JsonFeeder - the next token isn't complete yet
+        NEED_MORE_INPUT,
+        END
+    }
+
+    static JsonReader of(String json)
+    {
+        return of(json.chars().iterator());
+    }
+
+    static JsonReader of(Reader reader)
+    {
+        return of(Chars.iterator(reader));
+    }
+
+    static JsonReader of(byte[] utf8)
+    {
+        return of(ByteBuffer.wrap(utf8));
+    }
+
+    // byte input is tokenized as bytes (see readChunks()) - it isn't decoded to chars first
+    static JsonReader of(ByteBuffer utf8)
+    {
+        return readChunks(chunks(List.of(utf8).iterator()));
+    }
+
+    static JsonReader of(InputStream utf8)
+    {
+        byte[] bytes = new byte[CHUNK_SIZE];
+        ByteBuffer chunk = ByteBuffer.wrap(bytes);
+        return readChunks(() -> {
+            try {
+                int count;
+                do {
+                    count = utf8.read(bytes);
+                } while (count == 0);
+                return (count < 0) ? null : chunk.clear().limit(count);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static JsonReader of(Path utf8)
+    {
+        return readChunks(chunks(Utf8.map(utf8, Utf8.DEFAULT_MAPPING_THRESHOLD, Utf8.DEFAULT_MAX_REGION_SIZE).iterator()));
+    }
+
+    static JsonReader of(PrimitiveIterator.OfInt iterator)
+    {
+        return readStandard(iterator);
+    }
+
+    static JsonReader indexed(byte[] utf8)
+    {
+        return indexed(ByteBuffer.wrap(utf8));
+    }
+
+    static JsonReader indexed(ByteBuffer utf8)
+    {
+        return indexed(utf8, BlockClassifier.instance());
+    }
+
+    static JsonReader indexed(ByteBuffer utf8, BlockClassifier classifier)
+    {
+        return readIndexed(utf8.slice(), StructuralIndex.of(utf8, classifier), false);
+    }
+
+    // indexed() but strings that are plain ASCII (no escapes) are returned by stringChars() and currentToken()
+    // (as a StringSliceToken) as views of the input rather than copies. The input must not change while they are in use.
+    static JsonReader slicing(ByteBuffer utf8)
+    {
+        return readIndexed(utf8.slice(), StructuralIndex.of(utf8, BlockClassifier.instance()), true);
+    }
+
+    Event nextEvent();
+
+    Event currentEvent();
+
+    String currentName();
+
+    String stringValue();
+
+    // the string's chars - a view of the input from a slicing reader, otherwise the same as stringValue()
+    default CharSequence stringChars()
+    {
+        return stringValue();
+    }
+
+    boolean booleanValue();
+
+    boolean isIntegral();
+
+    int intValue();
+
+    long longValue();
+
+    double doubleValue();
+
+    Number numberValue();
+
+    // the number's text - only valid until the next call to nextEvent()
+    CharSequence numberText();
+
+    // skips the next value without decoding it - brackets are balanced and string ends are found but nothing
+    // is unescaped or converted. Valid after a NAME or, in an array, after BEGIN_ARRAY or VALUE_SEPARATOR.
+    // The skipped value then reads as a NULL event. Returns false, with END_ARRAY as the current event,
+    // when there's no value because the array is empty.
+    boolean skipValue();
+
+    default BigDecimal bigDecimalValue()
+    {
+        return StringUtils.parseBigDecimal(numberText());
+    }
+
+    default BigInteger bigIntegerValue()
+    {
+        return StringUtils.parseBigInteger(numberText());
+    }
+
+    default JsonToken currentToken()
+    {
+        return switch (currentEvent()) {
+            case BEGIN_OBJECT -> BeginObjectToken.INSTANCE;
+            case END_OBJECT -> EndObjectToken.INSTANCE;
+            case BEGIN_ARRAY -> BeginArrayToken.INSTANCE;
+            case END_ARRAY -> EndArrayToken.INSTANCE;
+            case VALUE_SEPARATOR -> ValueSeparatorToken.INSTANCE;
+            case NAME -> ObjectNameToken.of(currentName());
+            case STRING -> stringToken(stringChars());
+            case NUMBER -> NumberToken.of(numberText());
+            case TRUE -> BooleanToken.TRUE;
+            case FALSE -> BooleanToken.FALSE;
+            case NULL -> NullToken.INSTANCE;
+            case NEED_MORE_INPUT, END -> throw new RuntimeException("No current token");
+        };
+    }
+
+    default JsonReader withNaming(JsonNaming naming)
+    {
+        return new JsonReader()
+        {
+            @Override
+            public Event nextEvent()
+            {
+                return JsonReader.this.nextEvent();
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return JsonReader.this.currentEvent();
+            }
+
+            @Override
+            public String currentName()
+            {
+                return naming.apply(JsonReader.this.currentName());
+            }
+
+            @Override
+            public JsonToken currentToken()
+            {
+                return (currentEvent() == Event.NAME) ? ObjectNameToken.of(currentName()) : JsonReader.this.currentToken();
+            }
+
+            @Override
+            public String stringValue()
+            {
+                return JsonReader.this.stringValue();
+            }
+
+            @Override
+            public CharSequence stringChars()
+            {
+                return JsonReader.this.stringChars();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return JsonReader.this.booleanValue();
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                return JsonReader.this.isIntegral();
+            }
+
+            @Override
+            public int intValue()
+            {
+                return JsonReader.this.intValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return JsonReader.this.longValue();
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return JsonReader.this.doubleValue();
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                return JsonReader.this.numberValue();
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                return JsonReader.this.numberText();
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                return JsonReader.this.skipValue();
+            }
+        };
+    }
+
+    // numbers that aren't longs are returned by numberValue() and currentToken() as LazyNumbers that keep
+    // the number's text - nothing is converted until a value is asked for and BigDecimals are exact
+    default JsonReader withLazyNumbers()
+    {
+        return new JsonReader()
+        {
+            @Override
+            public Event nextEvent()
+            {
+                return JsonReader.this.nextEvent();
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return JsonReader.this.currentEvent();
+            }
+
+            @Override
+            public String currentName()
+            {
+                return JsonReader.this.currentName();
+            }
+
+            @Override
+            public String stringValue()
+            {
+                return JsonReader.this.stringValue();
+            }
+
+            @Override
+            public CharSequence stringChars()
+            {
+                return JsonReader.this.stringChars();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return JsonReader.this.booleanValue();
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                return JsonReader.this.isIntegral();
+            }
+
+            @Override
+            public int intValue()
+            {
+                return JsonReader.this.intValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return JsonReader.this.longValue();
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return JsonReader.this.doubleValue();
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                return StringUtils.toLazyNumber(JsonReader.this.numberText());
+            }
+
+            @Override
+            public JsonToken currentToken()
+            {
+                return (currentEvent() == Event.NUMBER) ? NumberToken.of(numberValue()) : JsonReader.this.currentToken();
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                return JsonReader.this.numberText();
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                return JsonReader.this.skipValue();
+            }
+        };
+    }
+
+    private static JsonReader readChunks(Supplier<ByteBuffer> nextChunk)
+    {
+        // a JsonFeeder that pulls its input. nextChunk returns the next buffer of input or null when there is
+        // no more. The feeder works on the UTF-8 bytes and only decodes string values.
+        JsonFeeder feeder = JsonFeeder.instance(CHUNK_SIZE * 2);
+        return new JsonReader()
+        {
+            @Override
+            public Event nextEvent()
+            {
+                return pull(feeder.nextEvent());
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return feeder.currentEvent();
+            }
+
+            @Override
+            public String currentName()
+            {
+                return feeder.currentName();
+            }
+
+            @Override
+            public String stringValue()
+            {
+                return feeder.stringValue();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return feeder.booleanValue();
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                return feeder.isIntegral();
+            }
+
+            @Override
+            public int intValue()
+            {
+                return feeder.intValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return feeder.longValue();
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return feeder.doubleValue();
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                return feeder.numberValue();
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                return feeder.numberText();
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                // a skip that needs more input is finished by the feeder's nextEvent()
+                feeder.skipValue();
+                return pull(feeder.currentEvent()) != Event.END_ARRAY;
+            }
+
+            private Event pull(Event event)
+            {
+                while (event == Event.NEED_MORE_INPUT) {
+                    ByteBuffer chunk = nextChunk.get();
+                    if (chunk == null) {
+                        feeder.endOfInput();
+                    }
+                    else {
+                        feeder.feed(chunk);
+                    }
+                    event = feeder.nextEvent();
+                }
+                return event;
+            }
+        };
+    }
+
+    // the buffers as a window of at most CHUNK_SIZE bytes that moves along them
+    private static Supplier<ByteBuffer> chunks(Iterator<ByteBuffer> buffers)
+    {
+        return new Supplier<>()
+        {
+            private ByteBuffer window = ByteBuffer.allocate(0);
+            private int regionLimit;
+
+            @Override
+            public ByteBuffer get()
+            {
+                // the feeder has consumed the last chunk so the window's position is where the next one starts
+                int position = window.position();
+                while (position == regionLimit) {
+                    if (!buffers.hasNext()) {
+                        return null;
+                    }
+                    window = buffers.next().duplicate();
+                    position = window.position();
+                    regionLimit = window.limit();
+                }
+                return window.limit(Math.min(regionLimit, position + CHUNK_SIZE));
+            }
+        };
+    }
+
+    private static JsonReader readStandard(PrimitiveIterator.OfInt iterator)
+    {
+        // values are held in the reader's buffer and are only valid until the next call to nextEvent()
+        return new JsonReader()
+        {
+            private final StringBuilder builder = new StringBuilder();
+            private final SymbolTable symbols = SymbolTable.bounded();
+            private int pushedBack = -1;
+            private final IntConsumer pushback = c -> pushedBack = c;
+            private Event currentEvent;
+            private String currentName;
+
+            @Override
+            public Event nextEvent()
+            {
+                currentName = null;
+                int next = nextNonWhitespace();
+                if (next < 0) {
+                    currentEvent = Event.END;
+                    return currentEvent;
+                }
+                char c = (char) (next & 0xffff);
+                currentEvent = switch (c) {
+                    case '{' -> Event.BEGIN_OBJECT;
+                    case '}' -> Event.END_OBJECT;
+                    case '[' -> Event.BEGIN_ARRAY;
+                    case ']' -> Event.END_ARRAY;
+                    case ',' -> Event.VALUE_SEPARATOR;
+                    case '"' -> {
+                        StringUtils.scanString(builder, iterator);
+                        // it may be an object name so we have to look at the next non-whitespace char
+                        int afterString = nextNonWhitespace();
+                        if (afterString == ':') {
+                            yield Event.NAME;
+                        }
+                        pushedBack = afterString;
+                        yield Event.STRING;
+                    }
+                    case 't' -> parseLiteral("rue", Event.TRUE);
+                    case 'f' -> parseLiteral("alse", Event.FALSE);
+                    case 'n' -> parseLiteral("ull", Event.NULL);
+                    case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+', '.', 'e', 'E' -> {
+                        StringUtils.scanNumber(builder, c, iterator, pushback);
+                        yield Event.NUMBER;
+                    }
+                    default -> throw new RuntimeException("Unexpected character: " + c);
+                };
+                return currentEvent;
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return currentEvent;
+            }
+
+            @Override
+            public String currentName()
+            {
+                checkEvent(Event.NAME);
+                if (currentName == null) {
+                    currentName = symbols.symbol(builder);
+                }
+                return currentName;
+            }
+
+            @Override
+            public String stringValue()
+            {
+                checkEvent(Event.STRING);
+                return builder.toString();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return switch (currentEvent) {
+                    case TRUE -> true;
+                    case FALSE -> false;
+                    default -> throw new RuntimeException("Current event is not a boolean: " + currentEvent);
+                };
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.isIntegral(builder);
+            }
+
+            @Override
+            public int intValue()
+            {
+                return (int) longValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : (long) StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.toNumber(builder);
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                checkEvent(Event.NUMBER);
+                return builder;
+            }
+
+            private void checkEvent(Event event)
+            {
+                if (currentEvent != event) {
+                    throw new RuntimeException("Current event is %s not %s".formatted(currentEvent, event));
+                }
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                checkSkippable(currentEvent);
+                int next = nextNonWhitespace();
+                if ((next == ']') && (currentEvent == Event.BEGIN_ARRAY)) {
+                    currentEvent = Event.END_ARRAY;
+                    return false;
+                }
+                switch ((next < 0) ? -1 : (char) (next & 0xffff)) {
+                    case '"' -> skipString();
+                    case '{', '[' -> {
+                        int depth = 1;
+                        while (depth > 0) {
+                            switch (nextChar()) {
+                                case '"' -> skipString();
+                                case '{', '[' -> ++depth;
+                                case '}', ']' -> --depth;
+                                default -> {}
+                            }
+                        }
+                    }
+                    case -1, ',', ':', '}', ']' -> throw new RuntimeException("Expected a value");
+                    default -> {
+                        // number or literal - runs up to the next delimiter
+                        while (iterator.hasNext()) {
+                            int c = iterator.nextInt();
+                            if (isDelimiter((char) (c & 0xffff))) {
+                                pushedBack = c;
+                                break;
+                            }
+                        }
+                    }
+                }
+                currentEvent = Event.NULL;
+                return true;
+            }
+
+            private void skipString()
+            {
+                for (char c = nextChar(); c != '"'; c = nextChar()) {
+                    if (c == '\\') {
+                        nextChar();
+                    }
+                }
+            }
+
+            private char nextChar()
+            {
+                if (!iterator.hasNext()) {
+                    throw new RuntimeException("Unexpected end of stream while skipping value");
+                }
+                return (char) (iterator.nextInt() & 0xffff);
+            }
+
+            private int nextNonWhitespace()
+            {
+                int next = pushedBack;
+                pushedBack = -1;
+                if ((next >= 0) && !StringUtils.isWhitespace((char) (next & 0xffff))) {
+                    return next;
+                }
+                while (iterator.hasNext()) {
+                    next = iterator.nextInt();
+                    if (!StringUtils.isWhitespace((char) (next & 0xffff))) {
+                        return next;
+                    }
+                }
+                return -1;
+            }
+
+            private Event parseLiteral(String remaining, Event event)
+            {
+                for (int i = 0; i < remaining.length(); ++i) {
+                    if (!iterator.hasNext() || ((char) (iterator.nextInt() & 0xffff) != remaining.charAt(i))) {
+                        throw new RuntimeException("Unexpected character while parsing literal");
+                    }
+                }
+                return event;
+            }
+        };
+    }
+
+    private static JsonReader readIndexed(ByteBuffer input, StructuralIndex index, boolean slicing)
+    {
+        // stage two - walks the structural positions found by stage one. Whitespace is never visited
+        // and strings are only decoded byte by byte when they contain escapes or non-ASCII chars.
+        return new JsonReader()
+        {
+            private final StringBuilder builder = new StringBuilder();
+            private final char[] scratch = StringUtils.asciiScratch();
+            private final SymbolTable symbols = SymbolTable.bounded();
+            private final int length = input.remaining();
+            private Event currentEvent;
+            private String currentName;
+            // when slicing - the range of a plain string that hasn't been copied to the builder
+            private int sliceStart = -1;
+            private int sliceEnd;
+
+            @Override
+            public Event nextEvent()
+            {
+                currentName = null;
+                sliceStart = -1;
+                int position = index.next();
+                if (position < 0) {
+                    currentEvent = Event.END;
+                    return currentEvent;
+                }
+                char c = (char) (input.get(position) & 0xff);
+                currentEvent = switch (c) {
+                    case '{' -> Event.BEGIN_OBJECT;
+                    case '}' -> Event.END_OBJECT;
+                    case '[' -> Event.BEGIN_ARRAY;
+                    case ']' -> Event.END_ARRAY;
+                    case ',' -> Event.VALUE_SEPARATOR;
+                    case '"' -> {
+                        scanString(position + 1);
+                        int afterString = index.peek();
+                        if ((afterString >= 0) && (input.get(afterString) == ':')) {
+                            index.next();
+                            // names go through the symbol table
+                            copySlice();
+                            yield Event.NAME;
+                        }
+                        yield Event.STRING;
+                    }
+                    case 't' -> parseLiteral(position, "true", Event.TRUE);
+                    case 'f' -> parseLiteral(position, "false", Event.FALSE);
+                    case 'n' -> parseLiteral(position, "null", Event.NULL);
+                    case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+', '.', 'e', 'E' -> {
+                        scanNumber(position);
+                        yield Event.NUMBER;
+                    }
+                    default -> throw new RuntimeException("Unexpected character: " + c);
+                };
+                return currentEvent;
+            }
+
+            @Override
+            public Event currentEvent()
+            {
+                return currentEvent;
+            }
+
+            @Override
+            public String currentName()
+            {
+                checkEvent(Event.NAME);
+                if (currentName == null) {
+                    currentName = symbols.symbol(builder);
+                }
+                return currentName;
+            }
+
+            @Override
+            public String stringValue()
+            {
+                return stringChars().toString();
+            }
+
+            @Override
+            public CharSequence stringChars()
+            {
+                checkEvent(Event.STRING);
+                return (sliceStart >= 0) ? new AsciiSlice(input, sliceStart, sliceEnd - sliceStart) : builder.toString();
+            }
+
+            @Override
+            public boolean booleanValue()
+            {
+                return switch (currentEvent) {
+                    case TRUE -> true;
+                    case FALSE -> false;
+                    default -> throw new RuntimeException("Current event is not a boolean: " + currentEvent);
+                };
+            }
+
+            @Override
+            public boolean isIntegral()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.isIntegral(builder);
+            }
+
+            @Override
+            public int intValue()
+            {
+                return (int) longValue();
+            }
+
+            @Override
+            public long longValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : (long) StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public double doubleValue()
+            {
+                return isIntegral() ? StringUtils.parseLong(builder) : StringUtils.parseDouble(builder);
+            }
+
+            @Override
+            public Number numberValue()
+            {
+                checkEvent(Event.NUMBER);
+                return StringUtils.toNumber(builder);
+            }
+
+            @Override
+            public CharSequence numberText()
+            {
+                checkEvent(Event.NUMBER);
+                return builder;
+            }
+
+            private void checkEvent(Event event)
+            {
+                if (currentEvent != event) {
+                    throw new RuntimeException("Current event is %s not %s".formatted(currentEvent, event));
+                }
+            }
+
+            @Override
+            public boolean skipValue()
+            {
+                checkSkippable(currentEvent);
+                // strings are single positions in the index so only the brackets need to be balanced
+                int position = index.next();
+                char c = (position < 0) ? 0 : (char) (input.get(position) & 0xff);
+                if ((c == ']') && (currentEvent == Event.BEGIN_ARRAY)) {
+                    currentEvent = Event.END_ARRAY;
+                    return false;
+                }
+                switch (c) {
+                    case '{', '[' -> {
+                        int depth = 1;
+                        while (depth > 0) {
+                            position = index.next();
+                            if (position < 0) {
+                                throw new RuntimeException("Unexpected end of stream while skipping value");
+                            }
+                            switch (input.get(position)) {
+                                case '{', '[' -> ++depth;
+                                case '}', ']' -> --depth;
+                                default -> {}
+                            }
+                        }
+                    }
+                    case 0, ',', ':', '}', ']' -> throw new RuntimeException("Expected a value");
+                    default -> {}
+                }
+                currentEvent = Event.NULL;
+                return true;
+            }
+
+            private void scanString(int start)
+            {
+                if (slicing) {
+                    int end = StringUtils.indexOfSpecial(input, start, length);
+                    if ((end < length) && (input.get(end) == '"')) {
+                        sliceStart = start;
+                        sliceEnd = end;
+                        builder.setLength(0);
+                        return;
+                    }
+                }
+                StringUtils.scanString(builder, input, start, scratch);
+            }
+
+            private void copySlice()
+            {
+                if (sliceStart >= 0) {
+                    for (int position = sliceStart; position < sliceEnd; ++position) {
+                        builder.append((char) input.get(position));
+                    }
+                    sliceStart = -1;
+                }
+            }
+
+            private void scanNumber(int start)
+            {
+                builder.setLength(0);
+                for (int position = start; position < length; ++position) {
+                    char c = (char) (input.get(position) & 0xff);
+                    if (isNumberChar(c)) {
+                        builder.append(c);
+                    }
+                    else if (isDelimiter(c)) {
+                        break;
+                    }
+                    else {
+                        throw new RuntimeException("Unexpected character while parsing number: " + c);
+                    }
+                }
+                StringUtils.checkNumber(builder);
+            }
+
+            private Event parseLiteral(int start, String literal, Event event)
+            {
+                int end = start + literal.length();
+                if (end > length) {
+                    throw new RuntimeException("Unexpected character while parsing literal");
+                }
+                for (int i = 1; i < literal.length(); ++i) {
+                    if (input.get(start + i) != literal.charAt(i)) {
+                        throw new RuntimeException("Unexpected character while parsing literal");
+                    }
+                }
+                // stage one only reports where a scalar starts - make sure nothing is glued onto the literal
+                if (end < length) {
+                    char c = (char) (input.get(end) & 0xff);
+                    if (!StringUtils.isWhitespace(c) && (c != '}') && (c != ',') && (c != ']') && (c != ':')) {
+                        throw new RuntimeException("Unexpected character while parsing literal");
+                    }
+                }
+                return event;
+            }
+        };
+    }
+
+    private static void checkSkippable(Event event)
+    {
+        if ((event != Event.NAME) && (event != Event.BEGIN_ARRAY) && (event != Event.VALUE_SEPARATOR)) {
+            throw new RuntimeException("Current event is %s - there is no value to skip".formatted(event));
+        }
+    }
+
+    // a view of the input from a slicing reader is streamed as a StringSliceToken
+    private static JsonToken stringToken(CharSequence chars)
+    {
+        return (chars instanceof String string) ? new StringToken(string) : new StringSliceToken(chars);
+    }
+
+    private static boolean isDelimiter(char c)
+    {
+        return (c == ',') || (c == '}') || (c == ']') || StringUtils.isWhitespace(c);
+    }
+
+    private static boolean isNumberChar(char c)
+    {
+        return ((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.') || (c == 'e') || (c == 'E');
+    }
+}
@@ -30,6 +30,7 @@ import io.starburst.json.util.StreamUtil;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.RecordComponent;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -57,6 +58,14 @@ public interface JsonSerializer
     interface PredicateSerializer
     {
         Optional<Stream<JsonToken>> maybeSerialize(JsonSerializer rootSerializer, Object o);
+
+        // called once per runtime class - returns the serializer to use for non-null values of the class or
+        // empty if none of them are handled. The default asks this serializer for each value. Implementations
+        // that decide by class alone can return a serializer that doesn't check the class again.
+        default Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+        {
+            return Optional.of(this);
+        }
     }
 
     interface Builder
@@ -104,7 +113,20 @@ public interface JsonSerializer
             {
                 List<PredicateSerializer> work = new ArrayList<>(predicateSerializers);
                 if (addStandard) {
-                    work.add((rootSerializer, o) -> serializeStandard(rootSerializer, o, recordCache));
+                    work.add(new PredicateSerializer()
+                    {
+                        @Override
+                        public Optional<Stream<JsonToken>> maybeSerialize(JsonSerializer rootSerializer, Object o)
+                        {
+                            return serializeStandard(rootSerializer, o, recordCache);
+                        }
+
+                        @Override
+                        public Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+                        {
+                            return Optional.ofNullable(standardPlan(clazz, recordCache));
+                        }
+                    });
                 }
                 return buildSerializer(Collections.unmodifiableList(work));
             }
@@ -114,16 +136,16 @@ public interface JsonSerializer
     static Optional<Stream<JsonToken>> serializeStandard(JsonSerializer rootSerializer, Object o, Cache<Class<?>, RecordComponent[]> recordCache)
     {
         Stream<JsonToken> tokenStream = switch (o) {
-            case null -> Stream.of(new NullToken());
+            case null -> Stream.of(NullToken.INSTANCE);
             case String str -> Stream.of(new StringToken(str));
-            case Number n -> Stream.of(new NumberToken(n));
-            case Boolean b -> Stream.of(new BooleanToken(b));
+            case Number n -> Stream.of(NumberToken.of(n));
+            case Boolean b -> Stream.of(BooleanToken.of(b));
             case Enum<?> e -> Stream.of(new StringToken(e.name()));
             case UUID uuid -> Stream.of(new StringToken(uuid.toString()));
             case Optional<?> optional -> StreamUtil.lazyStream(() -> rootSerializer.serialize(optional.orElse(null)));
-            case OptionalInt optional -> Stream.of(optional.isPresent() ? new NumberToken(optional.getAsInt()) : new NullToken());
-            case OptionalLong optional -> Stream.of(optional.isPresent() ? new NumberToken(optional.getAsLong()) : new NullToken());
-            case OptionalDouble optional -> Stream.of(optional.isPresent() ? new NumberToken(optional.getAsDouble()) : new NullToken());
+            case OptionalInt optional -> Stream.of(optional.isPresent() ? NumberToken.of(optional.getAsInt()) : NullToken.INSTANCE);
+            case OptionalLong optional -> Stream.of(optional.isPresent() ? NumberToken.of(optional.getAsLong()) : NullToken.INSTANCE);
+            case OptionalDouble optional -> Stream.of(optional.isPresent() ? new NumberToken(optional.getAsDouble()) : NullToken.INSTANCE);
             case Collection<?> collection -> serializeCollection(rootSerializer, collection);
             case Object __ when o.getClass().isArray() -> serializeArray(rootSerializer, o);
             case Object __ when o.getClass().isRecord() -> serializeRecord(rootSerializer, o, recordCache);
@@ -132,6 +154,24 @@ public interface JsonSerializer
         return Optional.ofNullable(tokenStream);
     }
 
+    // the class is matched once, in the same order as serializeStandard() - the returned serializer doesn't look at it again
+    private static PredicateSerializer standardPlan(Class<?> clazz, Cache<Class<?>, RecordComponent[]> recordCache)
+    {
+        return switch (clazz) {
+            case Class<?> __ when clazz.equals(String.class) -> (rootSerializer, o) -> Optional.of(Stream.of(new StringToken((String) o)));
+            case Class<?> __ when Number.class.isAssignableFrom(clazz) -> (rootSerializer, o) -> Optional.of(Stream.of(NumberToken.of((Number) o)));
+            case Class<?> __ when clazz.equals(Boolean.class) -> (rootSerializer, o) -> Optional.of(Stream.of(BooleanToken.of((Boolean) o)));
+            case Class<?> __ when Enum.class.isAssignableFrom(clazz) -> (rootSerializer, o) -> Optional.of(Stream.of(new StringToken(((Enum<?>) o).name())));
+            case Class<?> __ when clazz.equals(UUID.class) -> (rootSerializer, o) -> Optional.of(Stream.of(new StringToken(o.toString())));
+            case Class<?> __ when Optional.class.isAssignableFrom(clazz) -> (rootSerializer, o) -> Optional.of(StreamUtil.lazyStream(() -> rootSerializer.serialize(((Optional<?>) o).orElse(null))));
+            case Class<?> __ when clazz.equals(OptionalInt.class) || clazz.equals(OptionalLong.class) || clazz.equals(OptionalDouble.class) -> (rootSerializer, o) -> serializeStandard(rootSerializer, o, recordCache);
+            case Class<?> __ when Collection.class.isAssignableFrom(clazz) -> (rootSerializer, o) -> Optional.of(serializeCollection(rootSerializer, (Collection<?>) o));
+            case Class<?> __ when clazz.isArray() -> (rootSerializer, o) -> Optional.of(serializeArray(rootSerializer, o));
+            case Class<?> __ when clazz.isRecord() -> recordPlan(clazz, recordCache);
+            default -> null;
+        };
+    }
+
     static Stream<JsonToken> serializeArray(JsonSerializer rootSerializer, Object array)
     {
         Stream.Builder<Stream<JsonToken>> builder = Stream.builder();
@@ -152,18 +192,18 @@ public interface JsonSerializer
     static Stream<JsonToken> serializeCollection(JsonSerializer rootSerializer, Collection<?> collection)
     {
         Stream.Builder<Stream<JsonToken>> builder = Stream.builder();
-        builder.accept(Stream.of(new BeginArrayToken())); // we have to wrap the token in a stream as we want a stream of streams
+        builder.accept(Stream.of(BeginArrayToken.INSTANCE)); // we have to wrap the token in a stream as we want a stream of streams
         boolean first = true;
         for (Object value : collection) {
             if (first) {
                 first = false;
             }
             else {
-                builder.accept(Stream.of(new ValueSeparatorToken()));    // again, wrap the token in a stream
+                builder.accept(Stream.of(ValueSeparatorToken.INSTANCE));    // again, wrap the token in a stream
             }
             builder.accept(StreamUtil.lazyStream(() -> rootSerializer.serialize(value)));   // recursively serialize each value
         }
-        builder.accept(Stream.of(new EndArrayToken()));   // again, wrap the token in a stream
+        builder.accept(Stream.of(EndArrayToken.INSTANCE));   // again, wrap the token in a stream
         return builder.build().flatMap(Function.identity());    // flatten stream of streams into stream of tokens
     }
 
@@ -181,7 +221,7 @@ public interface JsonSerializer
             else {
                 builder.accept(Stream.of(ValueSeparatorToken.INSTANCE));
             }
-            builder.accept(Stream.of(new ObjectNameToken(objectField.name())));
+            builder.accept(Stream.of(ObjectNameToken.of(objectField.name())));
             builder.accept(rootSerializer.serialize(objectField.value()));
         }
         builder.accept(Stream.of(EndObjectToken.INSTANCE));
@@ -205,17 +245,54 @@ public interface JsonSerializer
         return serializeObject(rootSerializer, objectFields);
     }
 
+    // the components and their accessors are looked up once
+    private static PredicateSerializer recordPlan(Class<?> recordClass, Cache<Class<?>, RecordComponent[]> recordCache)
+    {
+        RecordComponent[] recordComponents = recordCache.computeIfAbsent(recordClass, Class::getRecordComponents);
+        String[] names = Arrays.stream(recordComponents).map(RecordComponent::getName).toArray(String[]::new);
+        Method[] accessors = Arrays.stream(recordComponents).map(RecordComponent::getAccessor).toArray(Method[]::new);
+        return (rootSerializer, record) -> {
+            List<ObjectField> objectFields = new ArrayList<>(names.length);
+            for (int i = 0; i < names.length; ++i) {
+                try {
+                    objectFields.add(new ObjectField(names[i], accessors[i].invoke(record)));
+                }
+                catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new RuntimeException(e);  // TODO
+                }
+            }
+            return Optional.of(serializeObject(rootSerializer, objectFields));
+        };
+    }
+
     private static JsonSerializer buildSerializer(List<PredicateSerializer> predicateSerializers)
     {
         return new JsonSerializer()
         {
+            // for each runtime class, the serializers that can handle it, in order
+            private final ClassValue<PredicateSerializer[]> plans = new ClassValue<>()
+            {
+                @Override
+                protected PredicateSerializer[] computeValue(Class<?> clazz)
+                {
+                    return predicateSerializers.stream()
+                            .flatMap(predicateSerializer -> predicateSerializer.maybePlan(clazz).stream())
+                            .toArray(PredicateSerializer[]::new);
+                }
+            };
+            private final PredicateSerializer[] nullPlan = predicateSerializers.toArray(PredicateSerializer[]::new);
+
             @Override
             public Stream<JsonToken> serialize(Object o)
             {
-                return predicateSerializers.stream()
-                        .flatMap(predicateSerializer -> predicateSerializer.maybeSerialize(this, o).stream())
-                        .findFirst()
-                        .orElseThrow(RuntimeException::new); // TODO
+                PredicateSerializer[] plan = (o != null) ? plans.get(o.getClass()) : nullPlan;
+                for (PredicateSerializer predicateSerializer : plan) {
+                    Optional<Stream<JsonToken>> tokens = predicateSerializer.maybeSerialize(this, o);
+                    if (tokens.isPresent()) {
+                        return tokens.get();
+                    }
+                }
+                throw new RuntimeException("No serializer for: " + ((o != null) ? o.getClass() : null));
             }
         };
     }
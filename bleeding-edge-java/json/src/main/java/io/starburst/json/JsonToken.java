@@ -15,6 +15,13 @@
  */
 package io.starburst.json;
 
+import io.starburst.json.util.LazyNumber;
+import io.starburst.json.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.stream.IntStream;
+
 public sealed interface JsonToken
 {
     record BeginArrayToken()
@@ -44,6 +51,21 @@ public sealed interface JsonToken
     record ObjectNameToken(String name)
             implements JsonToken
     {
+        private static final int CACHE_SIZE = 1024;
+        private static final ObjectNameToken[] CACHE = new ObjectNameToken[CACHE_SIZE];
+
+        // direct mapped - a name that collides with a cached name replaces it. Tokens are immutable
+        // so unsynchronized access is safe, at worst a token is created that could have been shared.
+        public static ObjectNameToken of(String name)
+        {
+            int slot = name.hashCode() & (CACHE_SIZE - 1);
+            ObjectNameToken token = CACHE[slot];
+            if ((token == null) || !token.name.equals(name)) {
+                token = new ObjectNameToken(name);
+                CACHE[slot] = token;
+            }
+            return token;
+        }
     }
 
     record ValueSeparatorToken()
@@ -57,9 +79,95 @@ public sealed interface JsonToken
     {
     }
 
+    // only streamed by a slicing parser (see JsonParser.slicing()) for string values that are plain ASCII.
+    // chars is a view of the input - it keeps the input reachable and the input must not change while the
+    // token is in use. Equal to another StringSliceToken with the same chars.
+    record StringSliceToken(CharSequence chars)
+            implements JsonToken
+    {
+        public StringToken toStringToken()
+        {
+            return new StringToken(chars.toString());
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return (o instanceof StringSliceToken token) && (CharSequence.compare(chars, token.chars) == 0);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            // same as String.hashCode()
+            int hash = 0;
+            for (int i = 0; i < chars.length(); ++i) {
+                hash = (31 * hash) + chars.charAt(i);
+            }
+            return hash;
+        }
+    }
+
     record NumberToken(Number value)
             implements JsonToken, JsonValue<Number>
     {
+        private static final int CACHE_LOW = -128;
+        private static final int CACHE_HIGH = 1024;
+        private static final NumberToken[] LONGS = IntStream.rangeClosed(CACHE_LOW, CACHE_HIGH).mapToObj(i -> new NumberToken((long) i)).toArray(NumberToken[]::new);
+        private static final NumberToken[] INTEGERS = IntStream.rangeClosed(CACHE_LOW, CACHE_HIGH).mapToObj(i -> new NumberToken(i)).toArray(NumberToken[]::new);
+
+        public static NumberToken of(long value)
+        {
+            return ((value >= CACHE_LOW) && (value <= CACHE_HIGH)) ? LONGS[(int) value - CACHE_LOW] : new NumberToken(value);
+        }
+
+        public static NumberToken of(int value)
+        {
+            return ((value >= CACHE_LOW) && (value <= CACHE_HIGH)) ? INTEGERS[value - CACHE_LOW] : new NumberToken(value);
+        }
+
+        // the value's type is preserved - only Long and Integer values are shared
+        public static NumberToken of(Number value)
+        {
+            return switch (value) {
+                case Long l -> of(l.longValue());
+                case Integer i -> of(i.intValue());
+                default -> new NumberToken(value);
+            };
+        }
+
+        // decoded now - see StringUtils.toNumber(). Longs aren't boxed.
+        public static NumberToken of(CharSequence number)
+        {
+            return StringUtils.isLong(number) ? of(StringUtils.parseLong(number)) : of(StringUtils.toNumber(number));
+        }
+
+        public BigDecimal bigDecimalValue()
+        {
+            return switch (value) {
+                case BigDecimal d -> d;
+                case BigInteger i -> new BigDecimal(i);
+                case LazyNumber n -> n.bigDecimalValue();
+                case Long __ -> BigDecimal.valueOf(value.longValue());
+                case Integer __ -> BigDecimal.valueOf(value.longValue());
+                case Short __ -> BigDecimal.valueOf(value.longValue());
+                case Byte __ -> BigDecimal.valueOf(value.longValue());
+                default -> StringUtils.parseBigDecimal(value.toString());
+            };
+        }
+
+        public BigInteger bigIntegerValue()
+        {
+            return switch (value) {
+                case BigInteger i -> i;
+                case LazyNumber n -> n.bigIntegerValue();
+                case Long __ -> BigInteger.valueOf(value.longValue());
+                case Integer __ -> BigInteger.valueOf(value.longValue());
+                case Short __ -> BigInteger.valueOf(value.longValue());
+                case Byte __ -> BigInteger.valueOf(value.longValue());
+                default -> StringUtils.parseBigInteger(value.toString());
+            };
+        }
     }
 
     record BooleanToken(boolean booleanValue)
@@ -68,6 +176,11 @@ public sealed interface JsonToken
         public static final BooleanToken TRUE = new BooleanToken(true);
         public static final BooleanToken FALSE = new BooleanToken(false);
 
+        public static BooleanToken of(boolean value)
+        {
+            return value ? TRUE : FALSE;
+        }
+
         @Override
         public Boolean value()
         {
@@ -15,7 +15,9 @@
  */
 package io.starburst.json;
 
+import io.starburst.json.JsonDeserializer.DeserializerPlan;
 import io.starburst.json.JsonDeserializer.TypedDeserializer;
+import io.starburst.json.JsonSerializer.PredicateSerializer;
 import io.starburst.json.JsonToken.BeginArrayToken;
 import io.starburst.json.JsonToken.BeginObjectToken;
 import io.starburst.json.JsonToken.BooleanToken;
@@ -29,9 +31,11 @@ import io.starburst.json.JsonToken.ValueSeparatorToken;
 import io.starburst.json.util.StreamUtil;
 
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -47,20 +51,52 @@ public sealed interface JsonValue<T>
     record JsonArray(List<? extends JsonValue<?>> value)
             implements JsonValue<List<? extends JsonValue<?>>> {}
 
+    // a value whose objects and arrays are only decoded as they are navigated e.g. get("x") on a JsonObject's
+    // map decodes the object's names and that one member. The input is indexed in one pass (see LazyJsonValue)
+    // and must not change while the value is in use.
+    static JsonValue<?> lazy(byte[] utf8)
+    {
+        return lazy(ByteBuffer.wrap(utf8));
+    }
+
+    static JsonValue<?> lazy(ByteBuffer utf8)
+    {
+        return LazyJsonValue.of(utf8);
+    }
+
     static JsonClass instance()
+    {
+        return jsonClass("JsonClass-instance", JsonValue::deserializeJsonValue);
+    }
+
+    // as instance() but deserialized values are held compactly - a few parallel arrays with long numbers stored
+    // as primitives and strings and names shared (see CompactJsonValue) - instead of a tree of maps, lists and
+    // tokens. Object members keep their document order.
+    static JsonClass compactInstance()
+    {
+        return jsonClass("JsonClass-compactInstance", (__, parentTypedDeserializer) -> CompactJsonValue.typedDeserializer(parentTypedDeserializer));
+    }
+
+    private static JsonClass jsonClass(String name, BiFunction<JsonDeserializer, TypedDeserializer, TypedDeserializer> deserializer)
     {
         return new JsonClass() {
             @Override
             public String toString()
             {
-                return "JsonClass-instance";
+                return name;
             }
 
             @Override
             public Optional<TypedDeserializer> maybeDeserialize(JsonDeserializer rootDeserializer, TypedDeserializer parentTypedDeserializer, Type type)
+            {
+                return maybePlan(rootDeserializer, type).map(plan -> plan.deserializer(parentTypedDeserializer));
+            }
+
+            @Override
+            public Optional<DeserializerPlan> maybePlan(JsonDeserializer rootDeserializer, Type type)
             {
                 return switch (type) {
-                    case Class<?> clazz when JsonValue.class.isAssignableFrom(clazz) -> Optional.of(deserializeJsonValue(rootDeserializer, parentTypedDeserializer));
+                    case Class<?> clazz when JsonValue.class.isAssignableFrom(clazz) -> Optional.of(parentTypedDeserializer -> deserializer.apply(rootDeserializer, parentTypedDeserializer));
                     default -> Optional.empty();
                 };
             }
@@ -74,6 +110,12 @@ public sealed interface JsonValue<T>
                     default -> Optional.empty();
                 };
             }
+
+            @Override
+            public Optional<PredicateSerializer> maybePlan(Class<?> clazz)
+            {
+                return JsonValue.class.isAssignableFrom(clazz) ? Optional.of(this) : Optional.empty();
+            }
         };
     }
 
@@ -91,7 +133,7 @@ public sealed interface JsonValue<T>
                     else {
                         builder.accept(Stream.of(ValueSeparatorToken.INSTANCE));
                     }
-                    builder.accept(Stream.of(new ObjectNameToken(entry.getKey())));
+                    builder.accept(Stream.of(ObjectNameToken.of(entry.getKey())));
                     builder.accept(StreamUtil.lazyStream(() -> serializeJsonValue(entry.getValue())));
                 }
                 builder.accept(Stream.of(EndObjectToken.INSTANCE));
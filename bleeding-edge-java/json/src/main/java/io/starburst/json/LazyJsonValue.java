@@ -0,0 +1,358 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.JsonValue.JsonArray;
+import io.starburst.json.JsonValue.JsonObject;
+import io.starburst.json.util.StringUtils;
+import io.starburst.json.util.StructuralIndex;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+// See JsonValue.lazy(). One pass over the StructuralIndex checks the structure and records the position of
+// every value and name (commas and colons aren't kept) plus, for each '{' and '[', the entry of its closing
+// bracket so that a whole value can be stepped over. JsonObject and JsonArray are backed by a Map and a List
+// that create their members from the input when they are first navigated - an object's names are decoded
+// the first time it is used, its values when they are asked for. Scalars are only checked when they are
+// decoded. Navigation isn't thread safe.
+final class LazyJsonValue
+{
+    // what can come next in the current container
+    private static final int VALUE = 0;
+    private static final int VALUE_OR_END = 1;
+    private static final int SEPARATOR_OR_END = 2;
+    private static final int NAME = 3;
+    private static final int NAME_OR_END = 4;
+    private static final int COLON = 5;
+    private static final int DONE = 6;
+
+    private final ByteBuffer input;
+    private final int length;
+    // the input position of each entry and, for '{' and '[', the entry of the matching close
+    private int[] positions = new int[64];
+    private int[] closes = new int[64];
+    private int count;
+
+    private LazyJsonValue(ByteBuffer input)
+    {
+        this.input = input;
+        this.length = input.limit();
+    }
+
+    static JsonValue<?> of(ByteBuffer utf8)
+    {
+        LazyJsonValue document = new LazyJsonValue(utf8.slice());
+        document.index(StructuralIndex.of(utf8));
+        return document.value(0);
+    }
+
+    private void index(StructuralIndex index)
+    {
+        int[] stack = new int[16];      // the entries of the open containers
+        int depth = 0;
+        int expect = VALUE;
+        for (int position = index.next(); position >= 0; position = index.next()) {
+            byte c = input.get(position);
+            switch (c) {
+                case ':' -> {
+                    check(expect == COLON, position);
+                    expect = VALUE;
+                }
+                case ',' -> {
+                    check(expect == SEPARATOR_OR_END, position);
+                    expect = (input.get(positions[stack[depth - 1]]) == '{') ? NAME : VALUE;
+                }
+                case '}', ']' -> {
+                    check(((expect == SEPARATOR_OR_END) || (expect == NAME_OR_END) || (expect == VALUE_OR_END)) && (depth > 0), position);
+                    int open = stack[--depth];
+                    check(input.get(positions[open]) == ((c == '}') ? '{' : '['), position);
+                    // add() first - it can grow closes
+                    int close = add(position);
+                    closes[open] = close;
+                    expect = (depth == 0) ? DONE : SEPARATOR_OR_END;
+                }
+                case '{', '[' -> {
+                    check((expect == VALUE) || (expect == VALUE_OR_END), position);
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = add(position);
+                    expect = (c == '{') ? NAME_OR_END : VALUE_OR_END;
+                }
+                default -> {
+                    if ((c == '"') && ((expect == NAME) || (expect == NAME_OR_END))) {
+                        add(position);
+                        expect = COLON;
+                    }
+                    else {
+                        check((expect == VALUE) || (expect == VALUE_OR_END), position);
+                        add(position);
+                        expect = (depth == 0) ? DONE : SEPARATOR_OR_END;
+                    }
+                }
+            }
+        }
+        if (expect != DONE) {
+            throw new RuntimeException("Unexpected end of input");
+        }
+    }
+
+    private int add(int position)
+    {
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, count * 2);
+            closes = Arrays.copyOf(closes, count * 2);
+        }
+        positions[count] = position;
+        return count++;
+    }
+
+    private static void check(boolean valid, int position)
+    {
+        if (!valid) {
+            throw new RuntimeException("Unexpected character at offset " + position);
+        }
+    }
+
+    // the entry after the value at entry
+    private int skip(int entry)
+    {
+        return switch (input.get(positions[entry])) {
+            case '{', '[' -> closes[entry] + 1;
+            default -> entry + 1;
+        };
+    }
+
+    private JsonValue<?> value(int entry)
+    {
+        int position = positions[entry];
+        return switch (input.get(position)) {
+            case '{' -> new JsonObject(new LazyObject(entry));
+            case '[' -> new JsonArray(new LazyArray(entry));
+            case '"' -> new StringToken(string(position));
+            case 't' -> literal(position, "true", BooleanToken.TRUE);
+            case 'f' -> literal(position, "false", BooleanToken.FALSE);
+            case 'n' -> literal(position, "null", NullToken.INSTANCE);
+            default -> number(position);
+        };
+    }
+
+    private String string(int position)
+    {
+        StringBuilder builder = new StringBuilder();
+        StringUtils.scanString(builder, input, position + 1);
+        return builder.toString();
+    }
+
+    private JsonValue<?> literal(int position, String literal, JsonValue<?> value)
+    {
+        int end = position + literal.length();
+        for (int i = 0; i < literal.length(); ++i) {
+            if (((position + i) >= length) || (input.get(position + i) != literal.charAt(i))) {
+                throw new RuntimeException("Unexpected character while parsing literal at offset " + position);
+            }
+        }
+        checkDelimited(end);
+        return value;
+    }
+
+    private NumberToken number(int position)
+    {
+        StringBuilder builder = new StringBuilder();
+        int end = position;
+        for (; end < length; ++end) {
+            char c = (char) (input.get(end) & 0xff);
+            switch (c) {
+                case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+', '.', 'e', 'E' -> builder.append(c);
+                default -> {
+                    checkDelimited(end);
+                    StringUtils.checkNumber(builder);
+                    return NumberToken.of(builder);
+                }
+            }
+        }
+        StringUtils.checkNumber(builder);
+        return NumberToken.of(builder);
+    }
+
+    private void checkDelimited(int end)
+    {
+        if (end < length) {
+            char c = (char) (input.get(end) & 0xff);
+            if (!StringUtils.isWhitespace(c) && (c != '}') && (c != ',') && (c != ']')) {
+                throw new RuntimeException("Unexpected character at offset " + end);
+            }
+        }
+    }
+
+    private final class LazyObject
+            extends AbstractMap<String, JsonValue<?>>
+    {
+        private final int open;
+        // name -> ordinal, in input order. A repeated name keeps its first position and its last value.
+        private Map<String, Integer> ordinals;
+        private int[] valueEntries;
+        private JsonValue<?>[] values;
+
+        private LazyObject(int open)
+        {
+            this.open = open;
+        }
+
+        @Override
+        public JsonValue<?> get(Object key)
+        {
+            Integer ordinal = ordinals().get(key);
+            return (ordinal == null) ? null : value(ordinal);
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return ordinals().containsKey(key);
+        }
+
+        @Override
+        public int size()
+        {
+            return ordinals().size();
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue<?>>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public Iterator<Entry<String, JsonValue<?>>> iterator()
+                {
+                    Iterator<Entry<String, Integer>> iterator = ordinals().entrySet().iterator();
+                    return new Iterator<>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue<?>> next()
+                        {
+                            Entry<String, Integer> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), value(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return ordinals().size();
+                }
+            };
+        }
+
+        private JsonValue<?> value(int ordinal)
+        {
+            JsonValue<?> value = values[ordinal];
+            if (value == null) {
+                value = LazyJsonValue.this.value(valueEntries[ordinal]);
+                values[ordinal] = value;
+            }
+            return value;
+        }
+
+        private Map<String, Integer> ordinals()
+        {
+            if (ordinals == null) {
+                ordinals = new LinkedHashMap<>();
+                int[] entries = new int[8];
+                StringBuilder builder = new StringBuilder();
+                char[] scratch = StringUtils.asciiScratch();
+                for (int entry = open + 1; entry < closes[open]; entry = skip(entry + 1)) {
+                    StringUtils.scanString(builder, input, positions[entry] + 1, scratch);
+                    int ordinal = ordinals.computeIfAbsent(builder.toString(), __ -> ordinals.size());
+                    if (ordinal == entries.length) {
+                        entries = Arrays.copyOf(entries, ordinal * 2);
+                    }
+                    entries[ordinal] = entry + 1;
+                }
+                valueEntries = entries;
+                values = new JsonValue<?>[ordinals.size()];
+            }
+            return ordinals;
+        }
+    }
+
+    private final class LazyArray
+            extends AbstractList<JsonValue<?>>
+            implements RandomAccess
+    {
+        private final int open;
+        private int[] elementEntries;
+        private JsonValue<?>[] elements;
+
+        private LazyArray(int open)
+        {
+            this.open = open;
+        }
+
+        @Override
+        public JsonValue<?> get(int index)
+        {
+            if ((index < 0) || (index >= size())) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            JsonValue<?> element = elements[index];
+            if (element == null) {
+                element = value(elementEntries[index]);
+                elements[index] = element;
+            }
+            return element;
+        }
+
+        @Override
+        public int size()
+        {
+            if (elementEntries == null) {
+                int[] entries = new int[8];
+                int size = 0;
+                for (int entry = open + 1; entry < closes[open]; entry = skip(entry)) {
+                    if (size == entries.length) {
+                        entries = Arrays.copyOf(entries, size * 2);
+                    }
+                    entries[size++] = entry;
+                }
+                elementEntries = Arrays.copyOf(entries, size);
+                elements = new JsonValue<?>[size];
+            }
+            return elementEntries.length;
+        }
+    }
+}
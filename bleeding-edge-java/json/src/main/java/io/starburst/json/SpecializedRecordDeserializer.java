@@ -0,0 +1,297 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonDeserializer.DeserializerPlan;
+import io.starburst.json.JsonDeserializer.TypedDeserializer;
+import io.starburst.json.JsonToken.BeginObjectToken;
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.EndObjectToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.ObjectNameToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.JsonToken.ValueSeparatorToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.starburst.json.JsonDeserializer.skippingTypedDeserializer;
+
+// See JsonDeserializer.Builder.withSpecializedRecords(). A record's components are classified once: int, long,
+// double, boolean and String components (and their boxes) are converted from their token by the record's own
+// deserializer - no TypedDeserializer is created for them - and other components are deserialized as usual. Members
+// are written to the argument slots of the canonical constructor, a MethodHandle.
+//
+// Each record gets its own copy of this class - a hidden class defined from this class's bytes with the Plan as
+// its class data - so that the JIT profiles and optimizes every record's deserializer separately and sees the plan
+// as a constant. When the copy can't be defined this class is shared by all records.
+final class SpecializedRecordDeserializer
+        implements TypedDeserializer, DeserializerPlan
+{
+    private static final byte OTHER = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte STRING = 5;
+
+    private record Plan(Class<?> recordClass, JsonDeserializer rootDeserializer, Map<String, Integer> slots, Type[] types, byte[] kinds, MethodHandle constructor) {}
+
+    // loaded when the first plan is made - not by the copies
+    private static final class Template
+    {
+        private static final byte[] BYTES = read();
+
+        private static byte[] read()
+        {
+            try (InputStream inputStream = SpecializedRecordDeserializer.class.getResourceAsStream(SpecializedRecordDeserializer.class.getSimpleName() + ".class")) {
+                return (inputStream != null) ? inputStream.readAllBytes() : null;
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    // the class data in a record's copy, null in this class
+    private static final Plan CLASS_PLAN = classPlan();
+
+    private final Plan plan;
+    private final TypedDeserializer parentTypedDeserializer;
+    private final Object[] values;
+    // created for the first member that isn't converted inline
+    private TypedDeserializer[] children;
+    // the slot of the member whose value token is next, -1 when none
+    private int pendingSlot = -1;
+    private boolean hasName;
+    private boolean started;
+    private boolean isDone;
+
+    private SpecializedRecordDeserializer(Plan plan, TypedDeserializer parentTypedDeserializer)
+    {
+        this.plan = plan;
+        this.parentTypedDeserializer = parentTypedDeserializer;
+        this.values = new Object[plan.kinds.length];
+    }
+
+    // empty when nothing can be converted inline or the constructor isn't accessible - the record is then
+    // deserialized as usual. The returned plan is an instance that creates deserializers of its own class.
+    static Optional<DeserializerPlan> plan(JsonDeserializer rootDeserializer, Class<?> recordClass, RecordComponent[] recordComponents)
+    {
+        Map<String, Integer> slots = new HashMap<>();
+        Type[] types = new Type[recordComponents.length];
+        byte[] kinds = new byte[recordComponents.length];
+        Class<?>[] argumentTypes = new Class<?>[recordComponents.length];
+        boolean hasInline = false;
+        for (int i = 0; i < recordComponents.length; ++i) {
+            slots.put(recordComponents[i].getName(), i);
+            types[i] = recordComponents[i].getGenericType();
+            argumentTypes[i] = recordComponents[i].getType();
+            kinds[i] = kind(argumentTypes[i]);
+            hasInline |= (kinds[i] != OTHER);
+        }
+        if (!hasInline) {
+            return Optional.empty();
+        }
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(recordClass, MethodType.methodType(void.class, argumentTypes))
+                    .asSpreader(Object[].class, argumentTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+        Plan plan = new Plan(recordClass, rootDeserializer, slots, types, kinds, constructor);
+        return Optional.of(specialized(plan).orElseGet(() -> new SpecializedRecordDeserializer(plan, null)));
+    }
+
+    // an instance of the record's own copy of this class
+    private static Optional<DeserializerPlan> specialized(Plan plan)
+    {
+        if (Template.BYTES == null) {
+            return Optional.empty();
+        }
+        try {
+            // a nestmate so that the copy can read the plan's fields
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(Template.BYTES, plan, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Plan.class, TypedDeserializer.class));
+            return Optional.of((DeserializerPlan) constructor.invoke(plan, null));
+        }
+        catch (Throwable e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Plan classPlan()
+    {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (!lookup.lookupClass().isHidden()) {
+            return null;
+        }
+        try {
+            return MethodHandles.classData(lookup, ConstantDescs.DEFAULT_NAME, Plan.class);
+        }
+        catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // in a record's copy "new SpecializedRecordDeserializer" creates an instance of the copy
+    @Override
+    public TypedDeserializer deserializer(TypedDeserializer parentTypedDeserializer)
+    {
+        return new SpecializedRecordDeserializer(plan, parentTypedDeserializer);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "specializedRecordDeserializer";
+    }
+
+    @Override
+    public TypedDeserializer accept(JsonToken jsonToken)
+    {
+        Plan plan = plan();
+        if (pendingSlot >= 0) {
+            values[pendingSlot] = convert(plan.kinds[pendingSlot], jsonToken);
+            pendingSlot = -1;
+            return this;
+        }
+        switch (jsonToken) {
+            case BeginObjectToken __ -> {
+                if (started) {
+                    throw new RuntimeException("Duplicate '{'");
+                }
+                started = true;
+            }
+            case ObjectNameToken(var name) -> {
+                if (!started || hasName) {
+                    throw new RuntimeException("Unexpected name: " + name);
+                }
+                hasName = true;
+                Integer slot = plan.slots.get(name);
+                if (slot == null) {
+                    if (plan.rootDeserializer.ignoresUnknownFields()) {
+                        return skippingTypedDeserializer(this);
+                    }
+                    throw new RuntimeException("Unknown field: " + name);
+                }
+                if (plan.kinds[slot] != OTHER) {
+                    pendingSlot = slot;
+                    return this;
+                }
+                if (children == null) {
+                    children = new TypedDeserializer[values.length];
+                }
+                TypedDeserializer typedDeserializer = plan.rootDeserializer.deserializerFor(this, plan.types[slot]);
+                children[slot] = typedDeserializer;
+                return typedDeserializer;
+            }
+            case EndObjectToken __ -> {
+                if (!started || isDone) {
+                    throw new RuntimeException("Unexpected '}'");
+                }
+                isDone = true;
+                return parentTypedDeserializer;
+            }
+            case ValueSeparatorToken __ -> {
+                if (!started || !hasName) {
+                    throw new RuntimeException("Missing name before ','");
+                }
+                hasName = false;
+            }
+            default -> throw new RuntimeException("Unexpected token: " + jsonToken);
+        }
+        return this;
+    }
+
+    @Override
+    public Object value()
+    {
+        Plan plan = plan();
+        if (!isDone) {
+            throw new RuntimeException("value() called before the end of the object");
+        }
+        if (children != null) {
+            for (int i = 0; i < children.length; ++i) {
+                if (children[i] != null) {
+                    values[i] = children[i].value();
+                }
+            }
+        }
+        try {
+            return (Object) plan.constructor.invokeExact(values);
+        }
+        catch (Error e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            throw new RuntimeException("Could not construct " + plan.recordClass.getName(), e);
+        }
+    }
+
+    // a constant in a record's copy
+    private Plan plan()
+    {
+        return (CLASS_PLAN != null) ? CLASS_PLAN : plan;
+    }
+
+    private static byte kind(Class<?> clazz)
+    {
+        if (clazz.equals(int.class) || clazz.equals(Integer.class)) {
+            return INT;
+        }
+        if (clazz.equals(long.class) || clazz.equals(Long.class)) {
+            return LONG;
+        }
+        if (clazz.equals(double.class) || clazz.equals(Double.class)) {
+            return DOUBLE;
+        }
+        if (clazz.equals(boolean.class) || clazz.equals(Boolean.class)) {
+            return BOOLEAN;
+        }
+        if (clazz.equals(String.class)) {
+            return STRING;
+        }
+        return OTHER;
+    }
+
+    // the same conversions as the standard simpleTypedDeserializer()s
+    private static Object convert(byte kind, JsonToken jsonToken)
+    {
+        return switch (jsonToken) {
+            case NullToken __ -> null;
+            case NumberToken(var number) when kind == INT -> number.intValue();
+            case NumberToken(var number) when kind == LONG -> number.longValue();
+            case NumberToken(var number) when kind == DOUBLE -> number.doubleValue();
+            case BooleanToken(var booleanValue) when kind == BOOLEAN -> booleanValue;
+            case StringToken stringToken when kind == STRING -> stringToken.value();
+            default -> throw new RuntimeException("Unexpected token: " + jsonToken);
+        };
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+// Maps the elements of a single top-level array in parallel. The input is cut into segments of about
+// segmentSize bytes and each cut is moved forward to a candidate element boundary: a comma followed by
+// the first byte of the array's first element (usually '{'). Segments are scanned and mapped
+// speculatively on the common fork-join pool, then the cuts are validated in order - a cut is good when
+// the preceding segment's last element ends exactly at it. A cut that landed inside a string or a nested
+// value is discarded and its segment is scanned again from where the preceding segment really ended.
+public final class ArrayElements
+{
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+    private final ByteBuffer[] regions;
+    private final int regionShift;
+    private final long regionMask;
+    private final long size;
+
+    private record Segment<T>(long start, long end, Optional<List<T>> elements, long next) {}
+
+    private ArrayElements(ByteBuffer[] regions, int regionShift, long size)
+    {
+        this.regions = regions;
+        this.regionShift = regionShift;
+        this.regionMask = (1L << regionShift) - 1;
+        this.size = size;
+    }
+
+    public static <T> List<T> map(ByteBuffer utf8, Function<ByteBuffer, T> mapper)
+    {
+        return map(utf8, DEFAULT_SEGMENT_SIZE, mapper);
+    }
+
+    public static <T> List<T> map(ByteBuffer utf8, int segmentSize, Function<ByteBuffer, T> mapper)
+    {
+        return new ArrayElements(new ByteBuffer[] {utf8.slice()}, 31, utf8.remaining()).map(segmentSize, mapper);
+    }
+
+    public static <T> List<T> map(Path utf8, Function<ByteBuffer, T> mapper)
+    {
+        return map(utf8, Utf8.DEFAULT_MAPPING_THRESHOLD, Utf8.DEFAULT_MAX_REGION_SIZE, DEFAULT_SEGMENT_SIZE, mapper);
+    }
+
+    public static <T> List<T> map(Path utf8, long mappingThreshold, int maxRegionSize, int segmentSize, Function<ByteBuffer, T> mapper)
+    {
+        // regions are a power of two in size so that an offset is located with a shift and a mask
+        int regionShift = Integer.numberOfTrailingZeros(Integer.highestOneBit(maxRegionSize));
+        List<ByteBuffer> regions = Utf8.map(utf8, mappingThreshold, 1 << regionShift);
+        if (regions.size() == 1) {
+            return map(regions.get(0), segmentSize, mapper);
+        }
+        long size = regions.stream().mapToLong(ByteBuffer::limit).sum();
+        return new ArrayElements(regions.toArray(ByteBuffer[]::new), regionShift, size).map(segmentSize, mapper);
+    }
+
+    private <T> List<T> map(int segmentSize, Function<ByteBuffer, T> mapper)
+    {
+        long first = skipWhitespace(0);
+        long last = size - 1;
+        while ((last > first) && isWhitespace(get(last))) {
+            --last;
+        }
+        if ((first >= size) || (get(first) != '[') || (get(last) != ']')) {
+            throw new RuntimeException("Expected a top-level array");
+        }
+        first = skipWhitespace(first + 1);
+        if (first == last) {
+            return new ArrayList<>();
+        }
+
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(first);
+        for (long target = first + segmentSize; target < last; target += segmentSize) {
+            long cut = candidate(Math.max(target, cuts.get(cuts.size() - 1) + 1), get(first), last);
+            if (cut < 0) {
+                break;
+            }
+            cuts.add(cut);
+        }
+        cuts.add(Long.MAX_VALUE);
+
+        long end = last;
+        List<Segment<T>> segments = IntStream.range(0, cuts.size() - 1)
+                .parallel()
+                .mapToObj(i -> speculate(cuts.get(i), cuts.get(i + 1), end, mapper))
+                .toList();
+
+        List<T> elements = new ArrayList<>();
+        long expected = first;
+        for (Segment<T> segment : segments) {
+            if (expected == last) {
+                // the array ended in an earlier segment - this one started inside its last element
+                break;
+            }
+            if (expected >= segment.end()) {
+                // an element of the previous segment spans this whole segment
+                continue;
+            }
+            if ((segment.start() != expected) || segment.elements().isEmpty()) {
+                // bad cut - scan again from where the previous segment really ended
+                segment = scan(expected, segment.end(), last, mapper);
+            }
+            elements.addAll(segment.elements().orElseThrow());
+            expected = segment.next();
+        }
+        return elements;
+    }
+
+    private <T> Segment<T> speculate(long start, long end, long last, Function<ByteBuffer, T> mapper)
+    {
+        try {
+            return scan(start, end, last, mapper);
+        }
+        catch (RuntimeException e) {
+            // most likely started inside a string - the cut gets validated (and the error reported) later
+            return new Segment<>(start, end, Optional.empty(), start);
+        }
+    }
+
+    // maps the elements that start before end - the last of them can finish past end
+    private <T> Segment<T> scan(long start, long end, long last, Function<ByteBuffer, T> mapper)
+    {
+        List<T> elements = new ArrayList<>();
+        long position = start;
+        while (position < end) {
+            long elementEnd = skipValue(position, last);
+            elements.add(mapper.apply(slice(position, elementEnd)));
+            position = skipWhitespace(elementEnd);
+            if (position == last) {
+                break;
+            }
+            if ((position > last) || (get(position) != ',')) {
+                throw new RuntimeException("Expected ',' or ']' at offset " + position);
+            }
+            position = skipWhitespace(position + 1);
+        }
+        return new Segment<>(start, end, Optional.of(elements), position);
+    }
+
+    // offset of the element following the first ',' at or after from that is followed by firstByte or -1
+    private long candidate(long from, byte firstByte, long last)
+    {
+        for (long position = from; position < last; ++position) {
+            if (get(position) == ',') {
+                long next = skipWhitespace(position + 1);
+                if ((next < last) && (get(next) == firstByte)) {
+                    return next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // offset just past the value that starts at position. Only the nesting is checked, the mapper parses the value
+    private long skipValue(long position, long last)
+    {
+        int depth = 0;
+        long index = position;
+        do {
+            if (index >= last) {
+                throw new RuntimeException("Unterminated value at offset " + position);
+            }
+            byte b = get(index++);
+            switch (b) {
+                case '"' -> index = skipString(index, last);
+                case '{', '[' -> ++depth;
+                case '}', ']' -> {
+                    if (--depth < 0) {
+                        throw new RuntimeException("Unexpected '%s' at offset %s".formatted((char) b, index - 1));
+                    }
+                }
+                default -> {
+                    if (depth == 0) {
+                        // a literal - runs up to the next delimiter
+                        while ((index < last) && !isDelimiter(get(index))) {
+                            ++index;
+                        }
+                    }
+                }
+            }
+        } while (depth > 0);
+        return index;
+    }
+
+    private long skipString(long position, long last)
+    {
+        for (long index = position; index < last; ++index) {
+            byte b = get(index);
+            if (b == '\\') {
+                ++index;
+            }
+            else if (b == '"') {
+                return index + 1;
+            }
+        }
+        throw new RuntimeException("Unterminated string at offset " + (position - 1));
+    }
+
+    private long skipWhitespace(long position)
+    {
+        while ((position < size) && isWhitespace(get(position))) {
+            ++position;
+        }
+        return position;
+    }
+
+    private ByteBuffer slice(long start, long end)
+    {
+        int length = (int) (end - start);
+        ByteBuffer region = regions[(int) (start >>> regionShift)];
+        int offset = (int) (start & regionMask);
+        if ((offset + length) <= region.limit()) {
+            return region.slice(offset, length);
+        }
+        // spans two (or more) regions
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = get(start + i);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private byte get(long offset)
+    {
+        return regions[(int) (offset >>> regionShift)].get((int) (offset & regionMask));
+    }
+
+    private static boolean isWhitespace(byte b)
+    {
+        return (b == ' ') || (b == '\n') || (b == '\r') || (b == '\t');
+    }
+
+    private static boolean isDelimiter(byte b)
+    {
+        return (b == ',') || (b == ']') || (b == '}') || isWhitespace(b);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+// A CharSequence view of a range of ASCII bytes - each byte is a char. Nothing is copied until
+// toString() is called, the String is then kept. The bytes must not change while the view is in use.
+public final class AsciiSlice
+        implements CharSequence
+{
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private String string;
+
+    public AsciiSlice(ByteBuffer buffer, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, buffer.limit());
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        Objects.checkIndex(index, length);
+        return (char) buffer.get(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        Objects.checkFromToIndex(start, end, length);
+        return new AsciiSlice(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString()
+    {
+        // racy but benign - at worst the String is created more than once
+        String result = string;
+        if (result == null) {
+            if (buffer.hasArray()) {
+                result = new String(buffer.array(), buffer.arrayOffset() + offset, length, ISO_8859_1);
+            }
+            else {
+                byte[] bytes = new byte[length];
+                buffer.get(offset, bytes);
+                result = new String(bytes, ISO_8859_1);
+            }
+            string = result;
+        }
+        return result;
+    }
+}
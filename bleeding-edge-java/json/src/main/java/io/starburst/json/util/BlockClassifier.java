@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+@FunctionalInterface
+public interface BlockClassifier
+{
+    int BLOCK_SIZE = 64;
+
+    int QUOTES = 0;
+    int BACKSLASHES = 1;
+    int OPERATORS = 2;
+    int WHITESPACE = 3;
+    int MASK_COUNT = 4;
+
+    // classifies the BLOCK_SIZE bytes starting at offset. Bit N of each mask is set when
+    // byte N of the block is in the class. Operators are the JSON structural chars {}[]:,
+    void classify(byte[] bytes, int offset, long[] masks);
+
+    static BlockClassifier instance()
+    {
+        // the Vector API is an incubator module - it's only used when it has been added to the runtime
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorBlockClassifier.isSupported()) {
+            return VectorBlockClassifier.build();
+        }
+        return swar();
+    }
+
+    static BlockClassifier swar()
+    {
+        // SIMD within a register - classifies 8 bytes at a time using plain long arithmetic
+        VarHandle longs = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        return (bytes, offset, masks) -> {
+            long quotes = 0;
+            long backslashes = 0;
+            long operators = 0;
+            long whitespace = 0;
+            for (int i = 0; i < BLOCK_SIZE; i += Long.BYTES) {
+                long word = (long) longs.get(bytes, offset + i);
+                long lowered = word | 0x2020202020202020L;    // maps '[' to '{' and ']' to '}'
+                quotes |= matches(word, '"') << i;
+                backslashes |= matches(word, '\\') << i;
+                operators |= (matches(lowered, '{') | matches(lowered, '}') | matches(word, ':') | matches(word, ',')) << i;
+                whitespace |= (matches(word, ' ') | matches(word, '\t') | matches(word, '\n') | matches(word, '\r')) << i;
+            }
+            masks[QUOTES] = quotes;
+            masks[BACKSLASHES] = backslashes;
+            masks[OPERATORS] = operators;
+            masks[WHITESPACE] = whitespace;
+        };
+    }
+
+    private static long matches(long word, char c)
+    {
+        // sets the high bit of each byte that equals c (exact - no false positives from borrows)
+        long x = word ^ (0x0101010101010101L * c);
+        long zeros = ~(((x & 0x7f7f7f7f7f7f7f7fL) + 0x7f7f7f7f7f7f7f7fL) | x | 0x7f7f7f7f7f7f7f7fL);
+        // gather the 8 high bits into the low 8 bits - byte N becomes bit N
+        return ((zeros >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public interface Chars
+{
+    int DEFAULT_BUFFER_SIZE = 8192;
+
+    static PrimitiveIterator.OfInt iterator(Reader reader)
+    {
+        return iterator(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    static PrimitiveIterator.OfInt iterator(Reader reader, int bufferSize)
+    {
+        // reads into a fixed window that is reused for every chunk. Memory use is bounded
+        // by the window size no matter how the input is split into lines.
+        return new PrimitiveIterator.OfInt()
+        {
+            private final char[] window = new char[bufferSize];
+            private int position;
+            private int limit;
+            private boolean isEndOfInput;
+
+            @Override
+            public boolean hasNext()
+            {
+                return (position < limit) || fill();
+            }
+
+            @Override
+            public int nextInt()
+            {
+                if ((position >= limit) && !fill()) {
+                    throw new NoSuchElementException();
+                }
+                return window[position++];
+            }
+
+            private boolean fill()
+            {
+                if (isEndOfInput) {
+                    return false;
+                }
+                try {
+                    int count;
+                    do {
+                        count = reader.read(window, 0, window.length);
+                    } while (count == 0);
+                    if (count < 0) {
+                        isEndOfInput = true;
+                        return false;
+                    }
+                    position = 0;
+                    limit = count;
+                    return true;
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
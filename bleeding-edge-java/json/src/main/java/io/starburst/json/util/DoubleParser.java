@@ -0,0 +1,230 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.math.BigInteger;
+
+// Decimal to double conversion without creating a String. The decimal mantissa (up to 19 digits) and
+// exponent are accumulated directly from the chars and converted with Clinger's exact fast path or,
+// failing that, the Eisel-Lemire algorithm (as described in "Number Parsing at a Gigabyte per Second"
+// and implemented by fast_float). Inputs the algorithm can't decide are handed to Double.parseDouble().
+interface DoubleParser
+{
+    int SMALLEST_POWER_OF_TEN = -342;
+    int LARGEST_POWER_OF_TEN = 308;
+    int MANTISSA_EXPLICIT_BITS = 52;
+    int MINIMUM_EXPONENT = -1023;
+    int INFINITE_POWER = 0x7ff;
+    int MIN_EXPONENT_ROUND_TO_EVEN = -4;
+    int MAX_EXPONENT_ROUND_TO_EVEN = 23;
+    int MAX_MANTISSA_DIGITS = 19;
+    int MAX_EXACT_POWER_OF_TEN = 22;
+    long MAX_EXACT_MANTISSA = 1L << 53;
+
+    double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    // 128 bit approximations of 5^q for SMALLEST_POWER_OF_TEN <= q <= LARGEST_POWER_OF_TEN, high word first
+    long[] POWERS_OF_FIVE = powersOfFive();
+
+    static double parse(CharSequence number)
+    {
+        int length = number.length();
+        int index = 0;
+        boolean isNegative = false;
+        if ((length > 0) && ((number.charAt(0) == '-') || (number.charAt(0) == '+'))) {
+            isNegative = (number.charAt(0) == '-');
+            ++index;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        for (; (index < length) && isDigit(number.charAt(index)); ++index) {
+            char digit = number.charAt(index);
+            mantissa = accumulate(mantissa, digit);
+            significantDigits += ((significantDigits > 0) || (digit != '0')) ? 1 : 0;
+            ++digits;
+        }
+        if ((index < length) && (number.charAt(index) == '.')) {
+            for (++index; (index < length) && isDigit(number.charAt(index)); ++index) {
+                char digit = number.charAt(index);
+                mantissa = accumulate(mantissa, digit);
+                significantDigits += ((significantDigits > 0) || (digit != '0')) ? 1 : 0;
+                ++digits;
+                --exponent;
+            }
+        }
+        if ((index < length) && ((number.charAt(index) == 'e') || (number.charAt(index) == 'E'))) {
+            ++index;
+            boolean isNegativeExponent = false;
+            if ((index < length) && ((number.charAt(index) == '-') || (number.charAt(index) == '+'))) {
+                isNegativeExponent = (number.charAt(index) == '-');
+                ++index;
+            }
+            if ((index == length) || !isDigit(number.charAt(index))) {
+                return fallback(number);
+            }
+            int explicitExponent = 0;
+            for (; (index < length) && isDigit(number.charAt(index)); ++index) {
+                // anything this large is zero or infinity - stop before the int overflows
+                if (explicitExponent < 100_000) {
+                    explicitExponent = (explicitExponent * 10) + (number.charAt(index) - '0');
+                }
+            }
+            exponent += isNegativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if ((digits == 0) || (index != length) || (significantDigits > MAX_MANTISSA_DIGITS)) {
+            // malformed input (Double.parseDouble() reports it) or too many digits to accumulate exactly
+            return fallback(number);
+        }
+
+        if ((Long.compareUnsigned(mantissa, MAX_EXACT_MANTISSA) <= 0) && (exponent >= -MAX_EXACT_POWER_OF_TEN) && (exponent <= MAX_EXACT_POWER_OF_TEN)) {
+            // the mantissa and the power of ten are both exact doubles so a single IEEE operation rounds correctly
+            double value = (double) mantissa;
+            value = (exponent < 0) ? (value / EXACT_POWERS_OF_TEN[-exponent]) : (value * EXACT_POWERS_OF_TEN[exponent]);
+            return isNegative ? -value : value;
+        }
+
+        long bits = eiselLemire(mantissa, exponent);
+        if (bits < 0) {
+            return fallback(number);
+        }
+        return Double.longBitsToDouble(isNegative ? (bits | Long.MIN_VALUE) : bits);
+    }
+
+    // returns the bits of the positive double nearest to mantissa * 10^exponent or -1 if it can't be determined
+    private static long eiselLemire(long mantissa, int exponent)
+    {
+        if ((mantissa == 0) || (exponent < SMALLEST_POWER_OF_TEN)) {
+            return 0;
+        }
+        if (exponent > LARGEST_POWER_OF_TEN) {
+            return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+
+        // 55 bits of precision are needed - widen to the full 128 bit power only when the low bits are all ones
+        int index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+        long high = Math.unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index]);
+        long low = normalized * POWERS_OF_FIVE[index];
+        long precisionMask = -1L >>> 55;
+        if ((high & precisionMask) == precisionMask) {
+            long secondHigh = Math.unsignedMultiplyHigh(normalized, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) {
+                ++high;
+            }
+        }
+        if ((low == -1L) && ((exponent < -27) || (exponent > 55))) {
+            // the product may be off by one in the last bit - too close to call
+            return -1;
+        }
+
+        int upperBit = (int) (high >>> 63);
+        long result = high >>> (upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3);
+        int power2 = power(exponent) + upperBit - leadingZeros - MINIMUM_EXPONENT;
+        if (power2 <= 0) {
+            // subnormal
+            if ((-power2 + 1) >= 64) {
+                return 0;
+            }
+            result >>>= -power2 + 1;
+            result += (result & 1);
+            result >>>= 1;
+            power2 = (result < (1L << MANTISSA_EXPLICIT_BITS)) ? 0 : 1;
+            return result | ((long) power2 << MANTISSA_EXPLICIT_BITS);
+        }
+
+        // exactly half way between two doubles - round to even
+        if ((Long.compareUnsigned(low, 1) <= 0) && (exponent >= MIN_EXPONENT_ROUND_TO_EVEN) && (exponent <= MAX_EXPONENT_ROUND_TO_EVEN) && ((result & 3) == 1)) {
+            if ((result << (upperBit + 64 - MANTISSA_EXPLICIT_BITS - 3)) == high) {
+                result &= ~1L;
+            }
+        }
+        result += (result & 1);
+        result >>>= 1;
+        if (result >= (2L << MANTISSA_EXPLICIT_BITS)) {
+            result = (1L << MANTISSA_EXPLICIT_BITS);
+            ++power2;
+        }
+        result &= ~(1L << MANTISSA_EXPLICIT_BITS);
+        if (power2 >= INFINITE_POWER) {
+            return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        }
+        return result | ((long) power2 << MANTISSA_EXPLICIT_BITS);
+    }
+
+    // floor(log2(10^exponent)) + 63
+    private static int power(int exponent)
+    {
+        return (((152170 + 65536) * exponent) >> 16) + 63;
+    }
+
+    private static long accumulate(long mantissa, char digit)
+    {
+        // 19 digits fit in an unsigned long. Overflow only happens past MAX_MANTISSA_DIGITS in which case the value isn't used
+        return (mantissa * 10) + (digit - '0');
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private static double fallback(CharSequence number)
+    {
+        return Double.parseDouble(number.toString());
+    }
+
+    private static long[] powersOfFive()
+    {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        long[] powers = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+        int index = 0;
+        for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; ++q) {
+            BigInteger value;
+            if (q < 0) {
+                // reciprocals are rounded up
+                BigInteger power = BigInteger.valueOf(5).pow(-q);
+                int z = power.bitLength();
+                int b = (q >= -27) ? (z + 127) : ((2 * z) + 128);
+                value = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                while (value.compareTo(two128) >= 0) {
+                    value = value.shiftRight(1);
+                }
+            }
+            else {
+                // powers are truncated
+                value = BigInteger.valueOf(5).pow(q);
+                while (value.compareTo(two127) < 0) {
+                    value = value.shiftLeft(1);
+                }
+                while (value.compareTo(two128) >= 0) {
+                    value = value.shiftRight(1);
+                }
+            }
+            powers[index++] = value.shiftRight(64).longValue();
+            powers[index++] = value.longValue();
+        }
+        return powers;
+    }
+}
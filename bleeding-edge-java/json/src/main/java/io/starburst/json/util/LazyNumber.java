@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.io.Serial;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// A number that is kept as its JSON text and only decoded into the type that is asked for.
+// Equality is textual so 1.0 and 1.00 are different numbers.
+public final class LazyNumber
+        extends Number
+{
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String text;
+
+    // the text is copied - readers pass their reusable number buffer
+    public LazyNumber(CharSequence text)
+    {
+        this.text = text.toString();
+    }
+
+    @Override
+    public int intValue()
+    {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue()
+    {
+        return StringUtils.isLong(text) ? StringUtils.parseLong(text) : (long) doubleValue();
+    }
+
+    @Override
+    public float floatValue()
+    {
+        return Float.parseFloat(text);
+    }
+
+    @Override
+    public double doubleValue()
+    {
+        return StringUtils.parseDouble(text);
+    }
+
+    public BigDecimal bigDecimalValue()
+    {
+        return StringUtils.parseBigDecimal(text);
+    }
+
+    public BigInteger bigIntegerValue()
+    {
+        return StringUtils.parseBigInteger(text);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return (o instanceof LazyNumber number) && text.equals(number.text);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Newline delimited input (NDJSON/JSON Lines). Each element is a slice holding one line without its
+// line terminator. Blank lines are skipped. Splits are made at line boundaries so the lines can be
+// processed in parallel.
+public interface Lines
+{
+    int MIN_SPLIT_SIZE = 1 << 16;
+
+    static Spliterator<ByteBuffer> spliterator(ByteBuffer utf8)
+    {
+        return spliterator(List.of(utf8.slice()), MIN_SPLIT_SIZE);
+    }
+
+    static Spliterator<ByteBuffer> spliterator(Path utf8)
+    {
+        return spliterator(utf8, Utf8.DEFAULT_MAPPING_THRESHOLD, Utf8.DEFAULT_MAX_REGION_SIZE, MIN_SPLIT_SIZE);
+    }
+
+    static Spliterator<ByteBuffer> spliterator(Path utf8, long mappingThreshold, int maxRegionSize, int minSplitSize)
+    {
+        // each mapped region ends at a line boundary so that no line spans two regions
+        List<ByteBuffer> regions = Utf8.map(utf8, mappingThreshold, maxRegionSize, region -> {
+            int end = region.limit();
+            while ((end > 0) && (region.get(end - 1) != '\n')) {
+                --end;
+            }
+            if (end == 0) {
+                throw new RuntimeException("Line is longer than %s bytes".formatted(maxRegionSize));
+            }
+            return region.slice(0, end);
+        });
+        return spliterator(regions, minSplitSize);
+    }
+
+    private static Spliterator<ByteBuffer> spliterator(List<ByteBuffer> regions, int minSplitSize)
+    {
+        int lastRegion = regions.size() - 1;
+        return spliterator(regions, minSplitSize, 0, 0, lastRegion, regions.get(lastRegion).limit());
+    }
+
+    // covers regions[region] from position through regions[lastRegion] up to lastEnd
+    private static Spliterator<ByteBuffer> spliterator(List<ByteBuffer> regions, int minSplitSize, int firstRegion, int firstPosition, int lastRegion, int lastEnd)
+    {
+        return new Spliterator<>()
+        {
+            private int region = firstRegion;
+            private int position = firstPosition;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ByteBuffer> action)
+            {
+                while (region <= lastRegion) {
+                    ByteBuffer buffer = regions.get(region);
+                    int end = (region == lastRegion) ? lastEnd : buffer.limit();
+                    if (position >= end) {
+                        ++region;
+                        position = 0;
+                        continue;
+                    }
+                    int lineStart = position;
+                    int lineEnd = indexOfNewline(buffer, lineStart, end);
+                    position = (lineEnd < end) ? (lineEnd + 1) : end;
+                    if (!isBlank(buffer, lineStart, lineEnd)) {
+                        action.accept(buffer.slice(lineStart, lineEnd - lineStart));
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Spliterator<ByteBuffer> trySplit()
+            {
+                if (region < lastRegion) {
+                    // whole regions first - hand off the first half
+                    int middle = (region + lastRegion + 1) / 2;
+                    Spliterator<ByteBuffer> prefix = spliterator(regions, minSplitSize, region, position, middle - 1, regions.get(middle - 1).limit());
+                    region = middle;
+                    position = 0;
+                    return prefix;
+                }
+                if ((region > lastRegion) || ((lastEnd - position) < (2 * minSplitSize))) {
+                    return null;
+                }
+                ByteBuffer buffer = regions.get(region);
+                int split = indexOfNewline(buffer, position + ((lastEnd - position) / 2), lastEnd) + 1;
+                if (split >= lastEnd) {
+                    return null;
+                }
+                Spliterator<ByteBuffer> prefix = spliterator(regions, minSplitSize, region, position, region, split);
+                position = split;
+                return prefix;
+            }
+
+            @Override
+            public long estimateSize()
+            {
+                // bytes rather than lines - only used to decide how to split
+                long size = 0;
+                for (int i = region; i <= lastRegion; ++i) {
+                    size += ((i == lastRegion) ? lastEnd : regions.get(i).limit()) - ((i == region) ? position : 0);
+                }
+                return Math.max(size, 0);
+            }
+
+            @Override
+            public int characteristics()
+            {
+                return ORDERED | NONNULL | IMMUTABLE;
+            }
+        };
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from, int end)
+    {
+        for (int i = from; i < end; ++i) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int from, int end)
+    {
+        for (int i = from; i < end; ++i) {
+            if (!StringUtils.isWhitespace((char) (buffer.get(i) & 0xff))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
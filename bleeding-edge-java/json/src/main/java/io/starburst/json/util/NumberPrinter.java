@@ -0,0 +1,459 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.math.BigInteger;
+
+// Appends numbers to a StringBuilder without an intermediate String. Integers are written two digits
+// at a time from a lookup table. Doubles and floats use Raffaello Giulietti's Schubfach algorithm
+// ("The Schubfach way to render doubles") which finds the shortest decimal that rounds back to the
+// same value - the output is identical to Double.toString()/Float.toString() on JDK 19+.
+public interface NumberPrinter
+{
+    char[] DIGIT_PAIRS = digitPairs();
+    long[] POWERS_OF_TEN = powersOfTen();
+
+    int K_MIN = -324;
+    int K_MAX = 292;
+    long MASK_63 = (1L << 63) - 1;
+    int MASK_28 = (1 << 28) - 1;
+    long MASK_32 = (1L << 32) - 1;
+
+    // 126 bit approximations (rounded up) of 10^-k for K_MIN <= k <= K_MAX split into the high and low 63 bits
+    long[] G1 = g(true);
+    long[] G0 = g(false);
+
+    static void append(StringBuilder output, Number number)
+    {
+        switch (number) {
+            case Long l -> appendLong(output, l);
+            case Integer i -> appendLong(output, i);
+            case Short s -> appendLong(output, s);
+            case Byte b -> appendLong(output, b);
+            case Double d -> appendDouble(output, d);
+            case Float f -> appendFloat(output, f);
+            // BigDecimal, BigInteger, LazyNumber (which returns its original text), etc.
+            default -> output.append(number.toString());
+        }
+    }
+
+    static void appendLong(StringBuilder output, long value)
+    {
+        if (value < 0) {
+            output.append('-');
+            if (value == Long.MIN_VALUE) {
+                output.append("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        int position = output.length() + digitCount(value);
+        output.setLength(position);
+        while (value >= 100) {
+            long quotient = value / 100;
+            int pair = (int) (value - (quotient * 100)) << 1;
+            output.setCharAt(--position, DIGIT_PAIRS[pair + 1]);
+            output.setCharAt(--position, DIGIT_PAIRS[pair]);
+            value = quotient;
+        }
+        int pair = (int) value << 1;
+        output.setCharAt(--position, DIGIT_PAIRS[pair + 1]);
+        if (value >= 10) {
+            output.setCharAt(--position, DIGIT_PAIRS[pair]);
+        }
+    }
+
+    static void appendDouble(StringBuilder output, double value)
+    {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & ((1L << 52) - 1);
+        int bq = (int) (bits >>> 52) & 0x7ff;
+        if (bq == 0x7ff) {
+            output.append((t != 0) ? "NaN" : ((bits > 0) ? "Infinity" : "-Infinity"));
+            return;
+        }
+        if (bits < 0) {
+            output.append('-');
+        }
+        if (bq != 0) {
+            // normal value - v = c 2^q
+            int mq = 1075 - bq;
+            long c = (1L << 52) | t;
+            if ((0 < mq) && (mq < 53)) {
+                // integers below 2^53 are their own shortest representation
+                long f = c >> mq;
+                if ((f << mq) == c) {
+                    appendDoubleDigits(output, f, 0);
+                    return;
+                }
+            }
+            doubleToDecimal(output, -mq, c, 0);
+        }
+        else if (t != 0) {
+            // subnormal value
+            if (t < 3) {
+                doubleToDecimal(output, -1074, 10 * t, -1);
+            }
+            else {
+                doubleToDecimal(output, -1074, t, 0);
+            }
+        }
+        else {
+            output.append("0.0");
+        }
+    }
+
+    static void appendFloat(StringBuilder output, float value)
+    {
+        int bits = Float.floatToRawIntBits(value);
+        int t = bits & ((1 << 23) - 1);
+        int bq = (bits >>> 23) & 0xff;
+        if (bq == 0xff) {
+            output.append((t != 0) ? "NaN" : ((bits > 0) ? "Infinity" : "-Infinity"));
+            return;
+        }
+        if (bits < 0) {
+            output.append('-');
+        }
+        if (bq != 0) {
+            int mq = 150 - bq;
+            int c = (1 << 23) | t;
+            if ((0 < mq) && (mq < 24)) {
+                int f = c >> mq;
+                if ((f << mq) == c) {
+                    appendFloatDigits(output, f, 0);
+                    return;
+                }
+            }
+            floatToDecimal(output, -mq, c, 0);
+        }
+        else if (t != 0) {
+            if (t < 8) {
+                floatToDecimal(output, -149, 10 * t, -1);
+            }
+            else {
+                floatToDecimal(output, -149, t, 0);
+            }
+        }
+        else {
+            output.append("0.0");
+        }
+    }
+
+    private static void doubleToDecimal(StringBuilder output, int q, long c, int dk)
+    {
+        // the rounding interval of v = c 2^q is [vbl, vbr] in units of 2^(q - 2), scaled by 10^-k below
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if ((c != (1L << 52)) || (q == -1074)) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else {
+            // the interval is asymmetric at powers of 2
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less first - s / 10 computed as a multiply high
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = (vbl + out) <= (sp10 << 2);
+            boolean wpin = ((tp10 << 2) + out) <= vbr;
+            if (upin != wpin) {
+                appendDoubleDigits(output, upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = (vbl + out) <= (s << 2);
+        boolean win = ((t << 2) + out) <= vbr;
+        if (uin != win) {
+            appendDoubleDigits(output, uin ? s : t, k + dk);
+            return;
+        }
+        // both candidates round trip - pick the closer one, ties to even
+        long cmp = vb - ((s + t) << 1);
+        appendDoubleDigits(output, ((cmp < 0) || ((cmp == 0) && ((s & 0x1) == 0))) ? s : t, k + dk);
+    }
+
+    private static void floatToDecimal(StringBuilder output, int q, int c, int dk)
+    {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if ((c != (1 << 23)) || (q == -149)) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        }
+        else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = G1[k - K_MIN] + 1;
+        int vb = roundToOdd(g, cb << h);
+        int vbl = roundToOdd(g, cbl << h);
+        int vbr = roundToOdd(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) ((s * 1_717_986_919L) >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = (vbl + out) <= (sp10 << 2);
+            boolean wpin = ((tp10 << 2) + out) <= vbr;
+            if (upin != wpin) {
+                appendFloatDigits(output, upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+        int t = s + 1;
+        boolean uin = (vbl + out) <= (s << 2);
+        boolean win = ((t << 2) + out) <= vbr;
+        if (uin != win) {
+            appendFloatDigits(output, uin ? s : t, k + dk);
+            return;
+        }
+        int cmp = vb - ((s + t) << 1);
+        appendFloatDigits(output, ((cmp < 0) || ((cmp == 0) && ((s & 0x1) == 0))) ? s : t, k + dk);
+    }
+
+    // round to odd of cp g 2^-127 where g = g1 2^63 + g0
+    private static long roundToOdd(long g1, long g0, long cp)
+    {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (((z & MASK_63) + MASK_63) >>> 63);
+    }
+
+    // round to odd of cp g 2^-95
+    private static int roundToOdd(long g, long cp)
+    {
+        long x1 = Math.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (((x1 & MASK_32) + MASK_32) >>> 32));
+    }
+
+    // writes f 10^e in the same format as Double.toString()
+    private static void appendDoubleDigits(StringBuilder output, long f, int e)
+    {
+        // normalize to exactly 17 digits so that f 10^e = 0.f 10^e'
+        int length = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[length]) {
+            ++length;
+        }
+        f *= POWERS_OF_TEN[17 - length];
+        e += length;
+
+        // h is the leading digit, m the next 8 and l the last 8 - divisions are done as multiply highs
+        long hm = Math.multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+        int l = (int) (f - (100_000_000L * hm));
+        int h = (int) ((hm * 1_441_151_881L) >>> 57);
+        int m = (int) (hm - (100_000_000 * h));
+        appendDigits(output, h, m, l, e);
+    }
+
+    // writes f 10^e in the same format as Float.toString()
+    private static void appendFloatDigits(StringBuilder output, int f, int e)
+    {
+        int length = flog10pow2(Integer.SIZE - Integer.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[length]) {
+            ++length;
+        }
+        f *= (int) POWERS_OF_TEN[9 - length];
+        e += length;
+
+        int h = (int) ((f * 1_441_151_881L) >>> 57);
+        int l = f - (100_000_000 * h);
+        appendDigits(output, h, l, 0, e);
+    }
+
+    private static void appendDigits(StringBuilder output, int h, int m, int l, int e)
+    {
+        if ((0 < e) && (e <= 7)) {
+            // plain format without leading zeros
+            output.append((char) ('0' + h));
+            int y = fraction(m);
+            int i = 1;
+            for (; i < e; ++i) {
+                int t = 10 * y;
+                output.append((char) ('0' + (t >>> 28)));
+                y = t & MASK_28;
+            }
+            output.append('.');
+            for (; i <= 8; ++i) {
+                int t = 10 * y;
+                output.append((char) ('0' + (t >>> 28)));
+                y = t & MASK_28;
+            }
+            appendLowDigits(output, l);
+        }
+        else if ((-3 < e) && (e <= 0)) {
+            // plain format with leading zeros
+            output.append("0.");
+            for (; e < 0; ++e) {
+                output.append('0');
+            }
+            output.append((char) ('0' + h));
+            append8Digits(output, m);
+            appendLowDigits(output, l);
+        }
+        else {
+            // computerized scientific notation
+            output.append((char) ('0' + h)).append('.');
+            append8Digits(output, m);
+            appendLowDigits(output, l);
+            appendExponent(output, e - 1);
+        }
+    }
+
+    private static void appendLowDigits(StringBuilder output, int l)
+    {
+        if (l != 0) {
+            append8Digits(output, l);
+        }
+        // remove trailing zeros but keep the one directly after the '.'
+        int length = output.length();
+        while (output.charAt(length - 1) == '0') {
+            --length;
+        }
+        if (output.charAt(length - 1) == '.') {
+            ++length;
+        }
+        output.setLength(length);
+    }
+
+    private static void append8Digits(StringBuilder output, int m)
+    {
+        // left to right digit extraction using a fixed point fraction
+        int y = fraction(m);
+        for (int i = 0; i < 8; ++i) {
+            int t = 10 * y;
+            output.append((char) ('0' + (t >>> 28)));
+            y = t & MASK_28;
+        }
+    }
+
+    // floor((a + 1) 2^28 / 10^8) - 1
+    private static int fraction(int a)
+    {
+        return (int) (Math.multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+    }
+
+    private static void appendExponent(StringBuilder output, int e)
+    {
+        output.append('E');
+        if (e < 0) {
+            output.append('-');
+            e = -e;
+        }
+        if (e >= 100) {
+            output.append((char) ('0' + (e / 100)));
+            e %= 100;
+            output.append(DIGIT_PAIRS[e << 1]).append(DIGIT_PAIRS[(e << 1) + 1]);
+        }
+        else if (e >= 10) {
+            output.append(DIGIT_PAIRS[e << 1]).append(DIGIT_PAIRS[(e << 1) + 1]);
+        }
+        else {
+            output.append((char) ('0' + e));
+        }
+    }
+
+    private static int digitCount(long value)
+    {
+        int count = 1;
+        while ((count < 19) && (value >= POWERS_OF_TEN[count])) {
+            ++count;
+        }
+        return count;
+    }
+
+    // floor(log10(2^e))
+    private static int flog10pow2(int e)
+    {
+        return (int) ((e * 661_971_961_083L) >> 41);
+    }
+
+    // floor(log10(3/4 2^e))
+    private static int flog10threeQuartersPow2(int e)
+    {
+        return (int) (((e * 661_971_961_083L) + -274_743_187_321L) >> 41);
+    }
+
+    // floor(log2(10^e))
+    private static int flog2pow10(int e)
+    {
+        return (int) ((e * 913_124_641_741L) >> 38);
+    }
+
+    private static char[] digitPairs()
+    {
+        char[] pairs = new char[200];
+        for (int i = 0; i < 100; ++i) {
+            pairs[i << 1] = (char) ('0' + (i / 10));
+            pairs[(i << 1) + 1] = (char) ('0' + (i % 10));
+        }
+        return pairs;
+    }
+
+    private static long[] powersOfTen()
+    {
+        long[] powers = new long[19];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; ++i) {
+            powers[i] = powers[i - 1] * 10;
+        }
+        return powers;
+    }
+
+    // the high or low words of the G table
+    private static long[] g(boolean high)
+    {
+        long[] words = new long[K_MAX - K_MIN + 1];
+        for (int k = K_MIN; k <= K_MAX; ++k) {
+            int e = -k;
+            int r = flog2pow10(e) - 125;
+            BigInteger g;
+            if (e >= 0) {
+                BigInteger power = BigInteger.TEN.pow(e);
+                g = (r >= 0) ? power.shiftRight(r) : power.shiftLeft(-r);
+            }
+            else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            g = g.add(BigInteger.ONE);
+            words[k - K_MIN] = high ? g.shiftRight(63).longValue() : (g.longValue() & MASK_63);
+        }
+        return words;
+    }
+}
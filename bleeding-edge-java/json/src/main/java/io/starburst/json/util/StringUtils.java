@@ -15,12 +15,26 @@
  */
 package io.starburst.json.util;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.PrimitiveIterator;
 import java.util.function.IntConsumer;
 
+
 public interface StringUtils
 {
+    String LONG_MAX_DIGITS = "9223372036854775807";
+    String LONG_MIN_DIGITS = "9223372036854775808";
+
     static Number parseNumber(StringBuilder builder, char firstChar, PrimitiveIterator.OfInt iterator, IntConsumer pushbackProc)
+    {
+        scanNumber(builder, firstChar, iterator, pushbackProc);
+        return toNumber(builder);
+    }
+
+    static void scanNumber(StringBuilder builder, char firstChar, PrimitiveIterator.OfInt iterator, IntConsumer pushbackProc)
     {
         builder.setLength(0);
         builder.append(firstChar);
@@ -45,11 +59,156 @@ public interface StringUtils
                 }
             }
         }
-        String value = builder.toString();
-        return (value.indexOf('.') >= 0) ? (Number)Double.parseDouble(value) : (Number)Long.parseLong(value);
+        checkNumber(builder);
+    }
+
+    // readers call this as soon as a number is scanned so that only the conversion is ever deferred.
+    // A number is an optional sign, digits with an optional fraction and an optional exponent.
+    static void checkNumber(CharSequence number)
+    {
+        int length = number.length();
+        int index = ((length > 0) && ((number.charAt(0) == '-') || (number.charAt(0) == '+'))) ? 1 : 0;
+        int digits = countDigits(number, index);
+        index += digits;
+        if ((index < length) && (number.charAt(index) == '.')) {
+            int fractionDigits = countDigits(number, index + 1);
+            index += 1 + fractionDigits;
+            digits += fractionDigits;
+        }
+        boolean isValid = digits > 0;
+        if (isValid && (index < length) && ((number.charAt(index) == 'e') || (number.charAt(index) == 'E'))) {
+            ++index;
+            if ((index < length) && ((number.charAt(index) == '-') || (number.charAt(index) == '+'))) {
+                ++index;
+            }
+            int exponentDigits = countDigits(number, index);
+            index += exponentDigits;
+            isValid = exponentDigits > 0;
+        }
+        if (!isValid || (index != length)) {
+            throw new NumberFormatException("Invalid number: " + number);
+        }
+    }
+
+    // integers are decoded as Long, or as BigInteger past the long range, and anything else as Double
+    static Number toNumber(CharSequence number)
+    {
+        if (isLong(number)) {
+            return parseLong(number);
+        }
+        return isIntegral(number) ? (Number) parseBigInteger(number) : (Number) parseDouble(number);
+    }
+
+    // integers in the long range are decoded immediately. Anything else keeps its text (see LazyNumber)
+    // and is only decoded when a value is asked for - e.g. exactly via bigDecimalValue().
+    static Number toLazyNumber(CharSequence number)
+    {
+        return isLong(number) ? (Number) parseLong(number) : (Number) new LazyNumber(number);
+    }
+
+    static boolean isIntegral(CharSequence number)
+    {
+        for (int i = 0; i < number.length(); ++i) {
+            switch (number.charAt(i)) {
+                case '.', 'e', 'E' -> {
+                    return false;
+                }
+                default -> {}
+            }
+        }
+        return true;
+    }
+
+    static boolean isLong(CharSequence number)
+    {
+        if (!isIntegral(number)) {
+            return false;
+        }
+        int start = ((number.length() > 0) && ((number.charAt(0) == '-') || (number.charAt(0) == '+'))) ? 1 : 0;
+        int digits = number.length() - start;
+        if (digits != LONG_MAX_DIGITS.length()) {
+            return digits < LONG_MAX_DIGITS.length();
+        }
+        // same number of digits as the limit - compare digit by digit
+        String limit = (number.charAt(0) == '-') ? LONG_MIN_DIGITS : LONG_MAX_DIGITS;
+        for (int i = 0; i < digits; ++i) {
+            int difference = number.charAt(start + i) - limit.charAt(i);
+            if (difference != 0) {
+                return difference < 0;
+            }
+        }
+        return true;
+    }
+
+    static long parseLong(CharSequence number)
+    {
+        int length = number.length();
+        int index = 0;
+        boolean isNegative = false;
+        if ((length > 0) && ((number.charAt(0) == '-') || (number.charAt(0) == '+'))) {
+            isNegative = (number.charAt(0) == '-');
+            ++index;
+        }
+        if (index == length) {
+            throw new RuntimeException("Invalid number: " + number);
+        }
+        // accumulate negatively so that Long.MIN_VALUE can be represented
+        long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; index < length; ++index) {
+            int digit = number.charAt(index) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                throw new RuntimeException("Invalid number: " + number);
+            }
+            if ((result < multiplyLimit) || ((result * 10) < (limit + digit))) {
+                throw new RuntimeException("Number out of range: " + number);
+            }
+            result = (result * 10) - digit;
+        }
+        return isNegative ? result : -result;
+    }
+
+    static double parseDouble(CharSequence number)
+    {
+        return DoubleParser.parse(number);
+    }
+
+    static BigDecimal parseBigDecimal(CharSequence number)
+    {
+        try {
+            return new BigDecimal(number.toString());
+        }
+        catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid number: " + number, e);
+        }
+    }
+
+    static BigInteger parseBigInteger(CharSequence number)
+    {
+        if (isIntegral(number)) {
+            try {
+                return new BigInteger(number.toString());
+            }
+            catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid number: " + number, e);
+            }
+        }
+        try {
+            return parseBigDecimal(number).toBigIntegerExact();
+        }
+        catch (ArithmeticException e) {
+            throw new RuntimeException("Number is not an integer: " + number, e);
+        }
     }
 
     static String parseString(StringBuilder builder, PrimitiveIterator.OfInt iterator)
+    {
+        scanString(builder, iterator);
+        return builder.toString();
+    }
+
+    static void scanString(StringBuilder builder, PrimitiveIterator.OfInt iterator)
     {
         builder.setLength(0);
         boolean previousWasEscape = false;
@@ -63,30 +222,19 @@ public interface StringUtils
             char c = (char) (iterator.nextInt() & 0xffff);
             if (unicodeRemaining > 0) {
                 --unicodeRemaining;
-                int value = switch (c) {
-                    case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> (c - '0');
-                    case 'a', 'b', 'c', 'd', 'e', 'f' -> (10 + (c - 'a'));
-                    case 'A', 'B', 'C', 'D', 'E', 'F' -> (10 + (c - 'A'));
-                    default -> throw new RuntimeException("Unexpected unicode escape character while parsing string: " + c);
-                };
-                unicodeValue = (unicodeValue << 4) | value;
+                unicodeValue = (unicodeValue << 4) | hexValue(c);
                 if (unicodeRemaining == 0) {
                     builder.append((char) (unicodeValue & 0xffff));
                 }
             }
             else if (previousWasEscape) {
                 previousWasEscape = false;  // handle \t, \r, etc.
-                switch (c) {
-                    case 'u' -> {
-                        unicodeRemaining = 4;
-                        unicodeValue = 0;
-                    }
-                    case 'b' -> builder.append('\b');
-                    case 'f' -> builder.append('\f');
-                    case 'n' -> builder.append('\n');
-                    case 'r' -> builder.append('\r');
-                    case 't' -> builder.append('\t');
-                    default -> builder.append(c);
+                if (c == 'u') {
+                    unicodeRemaining = 4;
+                    unicodeValue = 0;
+                }
+                else {
+                    builder.append(unescape(c));
                 }
             }
             else if (c != '\\') {
@@ -99,7 +247,59 @@ public interface StringUtils
                 previousWasEscape = true;
             }
         }
-        return builder.toString();
+    }
+
+    // same as scanString() above for a string in utf8 that starts (just after its opening quote) at start.
+    // Returns the offset just past the closing quote. Runs of plain ASCII are found 8 bytes at a time and
+    // copied in one go - only escapes and multibyte chars are decoded a char at a time.
+    static int scanString(StringBuilder builder, ByteBuffer utf8, int start)
+    {
+        return scanString(builder, utf8, start, asciiScratch());
+    }
+
+    // as above with a scratch array from asciiScratch() that callers reuse across strings
+    static int scanString(StringBuilder builder, ByteBuffer utf8, int start, char[] scratch)
+    {
+        builder.setLength(0);
+        int limit = utf8.limit();
+        int position = start;
+        while (true) {
+            int special = indexOfSpecial(utf8, position, limit);
+            appendAscii(builder, utf8, position, special, scratch);
+            if (special == limit) {
+                throw new RuntimeException("Unexpected end of stream while parsing string");
+            }
+            byte b = utf8.get(special);
+            if (b == '"') {
+                return special + 1;
+            }
+            position = (b == '\\') ? appendEscape(builder, utf8, special + 1, limit) : Utf8.appendCodePoint(builder, utf8, special);
+        }
+    }
+
+    static char[] asciiScratch()
+    {
+        return new char[64];
+    }
+
+    // offset of the first '"', '\\' or non-ASCII byte in utf8 at or after start, or limit if there's none
+    static int indexOfSpecial(ByteBuffer utf8, int start, int limit)
+    {
+        boolean bigEndian = utf8.order() == ByteOrder.BIG_ENDIAN;
+        int position = start;
+        for (; (position + Long.BYTES) <= limit; position += Long.BYTES) {
+            long specials = specials(utf8.getLong(position));
+            if (specials != 0) {
+                return position + ((bigEndian ? Long.numberOfLeadingZeros(specials) : Long.numberOfTrailingZeros(specials)) >>> 3);
+            }
+        }
+        for (; position < limit; ++position) {
+            byte b = utf8.get(position);
+            if ((b == '"') || (b == '\\') || (b < 0)) {
+                return position;
+            }
+        }
+        return limit;
     }
 
     static boolean isWhitespace(char c)
@@ -110,9 +310,15 @@ public interface StringUtils
         };
     }
 
-    static CharSequence quoteAndEscape(String str, boolean addObjectNameSeparator)
+    static CharSequence quoteAndEscape(CharSequence str, boolean addObjectNameSeparator)
     {
         StringBuilder result = new StringBuilder();
+        quoteAndEscape(str, addObjectNameSeparator, result);
+        return result;
+    }
+
+    static void quoteAndEscape(CharSequence str, boolean addObjectNameSeparator, StringBuilder result)
+    {
         result.append('"');
         for (int i = 0; i < str.length(); ++i) {
             char c = str.charAt(i);
@@ -128,6 +334,93 @@ public interface StringUtils
         if (addObjectNameSeparator) {
             result.append(':');
         }
-        return result;
+    }
+
+    private static int appendEscape(StringBuilder builder, ByteBuffer utf8, int position, int limit)
+    {
+        if (position >= limit) {
+            throw new RuntimeException("Unexpected end of stream while parsing string");
+        }
+        char c = (char) (utf8.get(position) & 0xff);
+        if (c != 'u') {
+            builder.append(unescape(c));
+            return position + 1;
+        }
+        if ((position + 5) > limit) {
+            throw new RuntimeException("Unexpected end of stream while parsing string");
+        }
+        int value = 0;
+        for (int i = 1; i <= 4; ++i) {
+            value = (value << 4) | hexValue((char) (utf8.get(position + i) & 0xff));
+        }
+        builder.append((char) value);
+        return position + 5;
+    }
+
+    private static void appendAscii(StringBuilder builder, ByteBuffer utf8, int start, int end, char[] scratch)
+    {
+        // widen 8 bytes at a time into the scratch chars and append those in bulk. Works the same for
+        // heap, direct and mapped buffers and needs no temporary String.
+        boolean bigEndian = utf8.order() == ByteOrder.BIG_ENDIAN;
+        int chunk = scratch.length & ~(Long.BYTES - 1);
+        int position = start;
+        while ((chunk > 0) && ((position + Long.BYTES) <= end)) {
+            int count = Math.min(chunk, (end - position) & ~(Long.BYTES - 1));
+            for (int i = 0; i < count; i += Long.BYTES) {
+                long word = utf8.getLong(position + i);
+                for (int j = 0; j < Long.BYTES; ++j) {
+                    int shift = bigEndian ? (56 - (j << 3)) : (j << 3);
+                    scratch[i + j] = (char) ((word >>> shift) & 0x7f);
+                }
+            }
+            builder.append(scratch, 0, count);
+            position += count;
+        }
+        for (; position < end; ++position) {
+            builder.append((char) utf8.get(position));
+        }
+    }
+
+    private static int countDigits(CharSequence number, int start)
+    {
+        int index = start;
+        while ((index < number.length()) && (number.charAt(index) >= '0') && (number.charAt(index) <= '9')) {
+            ++index;
+        }
+        return index - start;
+    }
+
+    private static long specials(long word)
+    {
+        // sets the high bit of each byte that is '"', '\\' or non-ASCII (see BlockClassifier.swar())
+        return matches(word, '"') | matches(word, '\\') | (word & 0x8080808080808080L);
+    }
+
+    private static long matches(long word, char c)
+    {
+        long x = word ^ (0x0101010101010101L * c);
+        return ~(((x & 0x7f7f7f7f7f7f7f7fL) + 0x7f7f7f7f7f7f7f7fL) | x | 0x7f7f7f7f7f7f7f7fL);
+    }
+
+    private static char unescape(char c)
+    {
+        return switch (c) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            default -> c;
+        };
+    }
+
+    private static int hexValue(char c)
+    {
+        return switch (c) {
+            case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> (c - '0');
+            case 'a', 'b', 'c', 'd', 'e', 'f' -> (10 + (c - 'a'));
+            case 'A', 'B', 'C', 'D', 'E', 'F' -> (10 + (c - 'A'));
+            default -> throw new RuntimeException("Unexpected unicode escape character while parsing string: " + c);
+        };
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static io.starburst.json.util.BlockClassifier.BACKSLASHES;
+import static io.starburst.json.util.BlockClassifier.BLOCK_SIZE;
+import static io.starburst.json.util.BlockClassifier.MASK_COUNT;
+import static io.starburst.json.util.BlockClassifier.OPERATORS;
+import static io.starburst.json.util.BlockClassifier.QUOTES;
+import static io.starburst.json.util.BlockClassifier.WHITESPACE;
+
+// Stage one of a simdjson style parser. Produces, in order, the positions of every structural
+// char outside of strings plus the start of every scalar (string, number, literal). Blocks are
+// indexed on demand so memory use doesn't depend on the input size.
+public interface StructuralIndex
+{
+    int BLOCKS_PER_FILL = 16;
+
+    // returns the next position or -1 when the input is exhausted
+    int next();
+
+    // returns the next position without consuming it or -1 when the input is exhausted
+    int peek();
+
+    static StructuralIndex of(ByteBuffer input)
+    {
+        return of(input, BlockClassifier.instance());
+    }
+
+    // positions are relative to input.position()
+    static StructuralIndex of(ByteBuffer input, BlockClassifier classifier)
+    {
+        ByteBuffer slice = input.slice();
+        return new StructuralIndex()
+        {
+            private static final long EVEN_BITS = 0x5555555555555555L;
+
+            private final byte[] array = slice.hasArray() ? slice.array() : null;
+            private final int arrayOffset = slice.hasArray() ? slice.arrayOffset() : 0;
+            private final int length = slice.remaining();
+            private final byte[] scratch = new byte[BLOCK_SIZE];
+            private final long[] masks = new long[MASK_COUNT];
+            private final int[] positions = new int[BLOCK_SIZE * BLOCKS_PER_FILL];
+            private int count;
+            private int readIndex;
+            private int blockStart;
+            private long previousEscaped;
+            private long previousInString;
+            private long previousScalar;
+
+            @Override
+            public int next()
+            {
+                if ((readIndex == count) && !fill()) {
+                    return -1;
+                }
+                return positions[readIndex++];
+            }
+
+            @Override
+            public int peek()
+            {
+                if ((readIndex == count) && !fill()) {
+                    return -1;
+                }
+                return positions[readIndex];
+            }
+
+            private boolean fill()
+            {
+                count = 0;
+                readIndex = 0;
+                while ((count == 0) && (blockStart < length)) {
+                    for (int i = 0; (i < BLOCKS_PER_FILL) && (blockStart < length); ++i) {
+                        indexBlock();
+                    }
+                }
+                return count > 0;
+            }
+
+            private void indexBlock()
+            {
+                int remaining = length - blockStart;
+                if ((array != null) && (remaining >= BLOCK_SIZE)) {
+                    classifier.classify(array, arrayOffset + blockStart, masks);
+                }
+                else {
+                    // direct/mapped buffers and the final partial block - pad with whitespace which is never structural
+                    int size = Math.min(remaining, BLOCK_SIZE);
+                    slice.get(blockStart, scratch, 0, size);
+                    Arrays.fill(scratch, size, BLOCK_SIZE, (byte) ' ');
+                    classifier.classify(scratch, 0, masks);
+                }
+
+                // chars preceded by an odd length run of backslashes are escaped
+                long backslashes = masks[BACKSLASHES] & ~previousEscaped;
+                long followsEscape = (backslashes << 1) | previousEscaped;
+                long oddSequenceStarts = backslashes & ~EVEN_BITS & ~followsEscape;
+                long sequencesStartingOnEvenBits = oddSequenceStarts + backslashes;
+                previousEscaped = (Long.compareUnsigned(sequencesStartingOnEvenBits, oddSequenceStarts) < 0) ? 1 : 0;
+                long escaped = (EVEN_BITS ^ (sequencesStartingOnEvenBits << 1)) & followsEscape;
+
+                // bits are set from an opening quote up to but not including the closing quote
+                long quotes = masks[QUOTES] & ~escaped;
+                long inString = prefixXor(quotes) ^ previousInString;
+                previousInString = inString >> 63;
+
+                // a scalar starts at a non-whitespace, non-operator char that doesn't follow another scalar char
+                long operators = masks[OPERATORS];
+                long scalars = ~(operators | masks[WHITESPACE]);
+                long nonQuoteScalars = scalars & ~quotes;
+                long followsNonQuoteScalar = (nonQuoteScalars << 1) | previousScalar;
+                previousScalar = nonQuoteScalars >>> 63;
+                long scalarStarts = scalars & ~followsNonQuoteScalar;
+
+                // everything inside strings is dropped except for the opening quote
+                long structurals = (operators | scalarStarts) & ~(inString ^ quotes);
+                while (structurals != 0) {
+                    positions[count++] = blockStart + Long.numberOfTrailingZeros(structurals);
+                    structurals &= structurals - 1;
+                }
+                blockStart += BLOCK_SIZE;
+            }
+
+            private static long prefixXor(long bits)
+            {
+                bits ^= bits << 1;
+                bits ^= bits << 2;
+                bits ^= bits << 4;
+                bits ^= bits << 8;
+                bits ^= bits << 16;
+                bits ^= bits << 32;
+                return bits;
+            }
+        };
+    }
+}
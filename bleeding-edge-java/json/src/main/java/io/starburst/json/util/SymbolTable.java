@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+public interface SymbolTable
+{
+    int DEFAULT_CAPACITY = 256;
+    int DEFAULT_MAX_SYMBOL_LENGTH = 64;
+
+    // returns a String equal to chars - the same instance is returned for chars that have been seen before
+    String symbol(CharSequence chars);
+
+    static SymbolTable bounded()
+    {
+        return bounded(DEFAULT_CAPACITY, DEFAULT_MAX_SYMBOL_LENGTH);
+    }
+
+    static SymbolTable bounded(int capacity, int maxSymbolLength)
+    {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        }
+        // direct mapped - a new symbol replaces whatever was in its slot so the table never grows
+        // and colliding keys only cost the allocation the table would have saved
+        return new SymbolTable()
+        {
+            private final String[] symbols = new String[capacity];
+            private final int[] hashes = new int[capacity];
+
+            @Override
+            public String symbol(CharSequence chars)
+            {
+                int length = chars.length();
+                if (length > maxSymbolLength) {
+                    return chars.toString();
+                }
+                int hash = 0;
+                for (int i = 0; i < length; ++i) {
+                    hash = (31 * hash) + chars.charAt(i);
+                }
+                int slot = (hash ^ (hash >>> 16)) & (capacity - 1);
+                String symbol = symbols[slot];
+                if ((symbol != null) && (hashes[slot] == hash) && symbol.contentEquals(chars)) {
+                    return symbol;
+                }
+                symbol = chars.toString();
+                symbols[slot] = symbol;
+                hashes[slot] = hash;
+                return symbol;
+            }
+        };
+    }
+}
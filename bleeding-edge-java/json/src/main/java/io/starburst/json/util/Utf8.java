@@ -0,0 +1,245 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+public interface Utf8
+{
+    int DEFAULT_BUFFER_SIZE = 8192;
+    long DEFAULT_MAPPING_THRESHOLD = 1 << 20;
+    int DEFAULT_MAX_REGION_SIZE = 1 << 30;
+
+    static PrimitiveIterator.OfInt iterator(ByteBuffer buffer)
+    {
+        return iterator(buffer, () -> null);
+    }
+
+    static PrimitiveIterator.OfInt iterator(Path path)
+    {
+        return iterator(path, DEFAULT_MAPPING_THRESHOLD, DEFAULT_MAX_REGION_SIZE);
+    }
+
+    static PrimitiveIterator.OfInt iterator(Path path, long mappingThreshold, int maxRegionSize)
+    {
+        Iterator<ByteBuffer> regionIterator = map(path, mappingThreshold, maxRegionSize).iterator();
+        return iterator(regionIterator.next(), () -> regionIterator.hasNext() ? regionIterator.next() : null);
+    }
+
+    // the file as a single heap buffer or, past the mapping threshold, as consecutive mapped regions of maxRegionSize
+    static List<ByteBuffer> map(Path path, long mappingThreshold, int maxRegionSize)
+    {
+        return map(path, mappingThreshold, maxRegionSize, UnaryOperator.identity());
+    }
+
+    // trimRegion is applied to each mapped region but the last - the next region starts where the trimmed one ends
+    static List<ByteBuffer> map(Path path, long mappingThreshold, int maxRegionSize, UnaryOperator<ByteBuffer> trimRegion)
+    {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            if ((size == 0) || (size < Math.min(mappingThreshold, maxRegionSize))) {
+                // mapping has fixed costs (mmap/munmap, page faults, GC cleanup) that small files don't recoup
+                ByteBuffer buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && (channel.read(buffer) >= 0)) {
+                    // keep reading
+                }
+                return List.of(buffer.flip());
+            }
+            // a single mapping is limited to 2GB so larger files are mapped as consecutive regions.
+            // Mappings remain valid after the channel is closed.
+            List<ByteBuffer> regions = new ArrayList<>();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer region = channel.map(READ_ONLY, position, Math.min(maxRegionSize, size - position));
+                if ((position + region.limit()) < size) {
+                    region = trimRegion.apply(region);
+                }
+                regions.add(region);
+                position += region.limit();
+            }
+            return regions;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static PrimitiveIterator.OfInt iterator(InputStream inputStream)
+    {
+        return iterator(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    static PrimitiveIterator.OfInt iterator(InputStream inputStream, int bufferSize)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize).flip();    // starts out empty
+        return iterator(buffer, () -> {
+            try {
+                int count;
+                do {
+                    count = inputStream.read(buffer.array(), 0, buffer.capacity());
+                } while (count == 0);
+                if (count < 0) {
+                    return null;
+                }
+                return buffer.clear().limit(count);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // decodes the multibyte sequence at position, appending it as one or two (surrogate) chars.
+    // Returns the offset just past the sequence. Validated the same way as the iterators.
+    static int appendCodePoint(StringBuilder builder, ByteBuffer utf8, int position)
+    {
+        int b = utf8.get(position);
+        if ((b & 0xe0) == 0xc0) {
+            int codePoint = ((b & 0x1f) << 6) | continuation(utf8, position + 1);
+            if (codePoint < 0x80) {
+                throw new RuntimeException("Overlong UTF-8 sequence");
+            }
+            builder.append((char) codePoint);
+            return position + 2;
+        }
+        if ((b & 0xf0) == 0xe0) {
+            int codePoint = ((b & 0x0f) << 12) | (continuation(utf8, position + 1) << 6) | continuation(utf8, position + 2);
+            if ((codePoint < 0x800) || Character.isSurrogate((char) codePoint)) {
+                throw new RuntimeException("Invalid UTF-8 sequence");
+            }
+            builder.append((char) codePoint);
+            return position + 3;
+        }
+        if ((b & 0xf8) == 0xf0) {
+            int codePoint = ((b & 0x07) << 18) | (continuation(utf8, position + 1) << 12) | (continuation(utf8, position + 2) << 6) | continuation(utf8, position + 3);
+            if ((codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) || (codePoint > Character.MAX_CODE_POINT)) {
+                throw new RuntimeException("Invalid UTF-8 sequence");
+            }
+            builder.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            return position + 4;
+        }
+        throw new RuntimeException("Invalid UTF-8 lead byte: " + (b & 0xff));
+    }
+
+    private static int continuation(ByteBuffer utf8, int position)
+    {
+        if (position >= utf8.limit()) {
+            throw new RuntimeException("Unexpected end of stream while decoding UTF-8");
+        }
+        int b = utf8.get(position);
+        if ((b & 0xc0) != 0x80) {
+            throw new RuntimeException("Invalid UTF-8 continuation byte: " + (b & 0xff));
+        }
+        return b & 0x3f;
+    }
+
+    private static PrimitiveIterator.OfInt iterator(ByteBuffer first, Supplier<ByteBuffer> nextChunk)
+    {
+        // returns UTF-16 chars - supplementary code points are returned as two surrogate chars.
+        // nextChunk returns the next buffer of input or null when there is no more input.
+        return new PrimitiveIterator.OfInt()
+        {
+            private ByteBuffer buffer = first;
+            private int pendingLowSurrogate = -1;
+
+            @Override
+            public boolean hasNext()
+            {
+                return (pendingLowSurrogate >= 0) || buffer.hasRemaining() || advance();
+            }
+
+            @Override
+            public int nextInt()
+            {
+                if (pendingLowSurrogate >= 0) {
+                    int c = pendingLowSurrogate;
+                    pendingLowSurrogate = -1;
+                    return c;
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int b = buffer.get();
+                if (b >= 0) {
+                    return b;   // ASCII - all JSON structure, numbers, literals, etc. - no decoding needed
+                }
+                // multibyte sequences can only legally appear inside of string values
+                if ((b & 0xe0) == 0xc0) {
+                    int codePoint = ((b & 0x1f) << 6) | continuation();
+                    if (codePoint < 0x80) {
+                        throw new RuntimeException("Overlong UTF-8 sequence");
+                    }
+                    return codePoint;
+                }
+                if ((b & 0xf0) == 0xe0) {
+                    int codePoint = ((b & 0x0f) << 12) | (continuation() << 6) | continuation();
+                    if ((codePoint < 0x800) || Character.isSurrogate((char) codePoint)) {
+                        throw new RuntimeException("Invalid UTF-8 sequence");
+                    }
+                    return codePoint;
+                }
+                if ((b & 0xf8) == 0xf0) {
+                    int codePoint = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+                    if ((codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) || (codePoint > Character.MAX_CODE_POINT)) {
+                        throw new RuntimeException("Invalid UTF-8 sequence");
+                    }
+                    pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                    return Character.highSurrogate(codePoint);
+                }
+                throw new RuntimeException("Invalid UTF-8 lead byte: " + (b & 0xff));
+            }
+
+            private boolean advance()
+            {
+                while (!buffer.hasRemaining()) {
+                    ByteBuffer next = nextChunk.get();
+                    if (next == null) {
+                        return false;
+                    }
+                    buffer = next;
+                }
+                return true;
+            }
+
+            private int continuation()
+            {
+                if (!buffer.hasRemaining() && !advance()) {
+                    throw new RuntimeException("Unexpected end of stream while decoding UTF-8");
+                }
+                int b = buffer.get();
+                if ((b & 0xc0) != 0x80) {
+                    throw new RuntimeException("Invalid UTF-8 continuation byte: " + (b & 0xff));
+                }
+                return b & 0x3f;
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json.util;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static io.starburst.json.util.BlockClassifier.BACKSLASHES;
+import static io.starburst.json.util.BlockClassifier.BLOCK_SIZE;
+import static io.starburst.json.util.BlockClassifier.OPERATORS;
+import static io.starburst.json.util.BlockClassifier.QUOTES;
+import static io.starburst.json.util.BlockClassifier.WHITESPACE;
+
+// only loaded when the jdk.incubator.vector module is present - see BlockClassifier.instance()
+interface VectorBlockClassifier
+{
+    VectorSpecies<Byte> SPECIES = (ByteVector.SPECIES_PREFERRED.length() > BLOCK_SIZE) ? ByteVector.SPECIES_512 : ByteVector.SPECIES_PREFERRED;
+
+    static boolean isSupported()
+    {
+        // narrower vectors don't beat SWAR
+        return SPECIES.vectorBitSize() >= 128;
+    }
+
+    static BlockClassifier build()
+    {
+        return (bytes, offset, masks) -> {
+            long quotes = 0;
+            long backslashes = 0;
+            long operators = 0;
+            long whitespace = 0;
+            for (int i = 0; i < BLOCK_SIZE; i += SPECIES.length()) {
+                ByteVector vector = ByteVector.fromArray(SPECIES, bytes, offset + i);
+                ByteVector lowered = vector.or((byte) 0x20);   // maps '[' to '{' and ']' to '}'
+                quotes |= vector.eq((byte) '"').toLong() << i;
+                backslashes |= vector.eq((byte) '\\').toLong() << i;
+                operators |= lowered.eq((byte) '{')
+                        .or(lowered.eq((byte) '}'))
+                        .or(vector.eq((byte) ':'))
+                        .or(vector.eq((byte) ','))
+                        .toLong() << i;
+                whitespace |= vector.eq((byte) ' ')
+                        .or(vector.eq((byte) '\t'))
+                        .or(vector.eq((byte) '\n'))
+                        .or(vector.eq((byte) '\r'))
+                        .toLong() << i;
+            }
+            masks[QUOTES] = quotes;
+            masks[BACKSLASHES] = backslashes;
+            masks[OPERATORS] = operators;
+            masks[WHITESPACE] = whitespace;
+        };
+    }
+}
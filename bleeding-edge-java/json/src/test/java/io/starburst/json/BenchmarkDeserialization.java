@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.util.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// binding a 1M element array of small records - the cost is dominated by per-value deserializer work
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector", "-Xmx4g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkDeserialization
+{
+    public record Point(int x, long y, String name, boolean visible) {}
+
+    private static final TypeToken<List<Point>> POINTS = new TypeToken<>() {};
+
+    private final Json json = Json.instance();
+    private final Json specialized = Json.builder().withSpecializedRecords().build();
+    private byte[] utf8;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(0);
+        utf8 = IntStream.range(0, 1_000_000)
+                .mapToObj(i -> json.serializeToString(new Point(random.nextInt(), random.nextLong(), "p" + random.nextInt(1000), random.nextBoolean())))
+                .collect(Collectors.joining(",", "[", "]"))
+                .getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public List<Point> deserialize()
+    {
+        return json.deserialize(POINTS, utf8);
+    }
+
+    @Benchmark
+    public List<Point> deserializeSpecialized()
+    {
+        return specialized.deserialize(POINTS, utf8);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(".*" + BenchmarkDeserialization.class.getSimpleName() + ".*")
+                .build())
+                .run();
+    }
+}
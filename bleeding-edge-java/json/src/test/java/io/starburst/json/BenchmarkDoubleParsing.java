@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonReader.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.starburst.json.EdgeCases.FLOATS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// float heavy corpus - the FLOATS edge cases plus random telemetry style readings
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkDoubleParsing
+{
+    private byte[] utf8;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(0);
+        String readings = IntStream.range(0, 100_000)
+                .mapToObj(i -> Double.toString(random.nextGaussian() * Math.pow(10, random.nextInt(12) - 6)))
+                .collect(Collectors.joining(","));
+        utf8 = (FLOATS.trim().replace("]", ",") + readings + "]").getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public double readerDoubleValue()
+    {
+        JsonReader reader = JsonReader.of(utf8);
+        double sum = 0;
+        Event event;
+        while ((event = reader.nextEvent()) != Event.END) {
+            if (event == Event.NUMBER) {
+                sum += reader.doubleValue();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double jdkParseDouble()
+    {
+        JsonReader reader = JsonReader.of(utf8);
+        double sum = 0;
+        Event event;
+        while ((event = reader.nextEvent()) != Event.END) {
+            if (event == Event.NUMBER) {
+                sum += Double.parseDouble(reader.numberText().toString());
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(".*" + BenchmarkDoubleParsing.class.getSimpleName() + ".*")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.NumberToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// a metrics snapshot - half gauges (doubles), half counters (longs)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkNumberPrinting
+{
+    private List<NumberToken> tokens;
+    private final StringBuilder output = new StringBuilder();
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(0);
+        tokens = random.doubles(100_000)
+                .mapToObj(d -> random.nextBoolean() ? new NumberToken(d * 1000) : NumberToken.of(random.nextLong() >>> random.nextInt(64)))
+                .toList();
+    }
+
+    @Benchmark
+    public int printInPlace()
+    {
+        JsonPrinter printer = JsonPrinter.instance();
+        output.setLength(0);
+        for (NumberToken token : tokens) {
+            printer.print(token, output);
+        }
+        return output.length();
+    }
+
+    @Benchmark
+    public int printToString()
+    {
+        output.setLength(0);
+        for (NumberToken token : tokens) {
+            output.append(token.value().toString());
+        }
+        return output.length();
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(".*" + BenchmarkNumberPrinting.class.getSimpleName() + ".*")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.util.ArrayElements;
+import io.starburst.json.util.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestArrayElements
+{
+    public record Item(int id, String text, List<Integer> values) {}
+
+    @Test
+    public void testSpeculativeSplits()
+            throws IOException
+    {
+        // strings that look like element boundaries make many of the speculative cuts bad
+        List<Item> items = IntStream.range(0, 20_000)
+                .mapToObj(i -> new Item(i, (i % 3 == 0) ? "a\", {\"id\": 1}, {".repeat(i % 7) : "plain", IntStream.range(0, i % 5).boxed().toList()))
+                .toList();
+        Json json = Json.instance();
+        String text = json.serializeToString(items).replace("},{", "},\n  {");
+        List<Item> expected = json.deserialize(new TypeToken<List<Item>>() {}, text);
+        assertEquals(items.size(), expected.size());
+
+        for (int segmentSize : List.of(7, 64, 1000, 1 << 20)) {
+            assertEquals(expected, ArrayElements.map(ByteBuffer.wrap(text.getBytes(UTF_8)), segmentSize, element -> json.deserialize(Item.class, element)));
+        }
+
+        Path path = Files.createTempFile("array", ".json");
+        try {
+            Files.writeString(path, text);
+            assertEquals(expected, json.deserializeArray(Item.class, path));
+            assertEquals(expected, Json.builder().withIndexedParsing().build().deserializeArray(new TypeToken<Item>() {}, path));
+            // small mapped regions - elements span regions
+            assertEquals(expected, ArrayElements.map(path, 0, 4096, 500, element -> json.deserialize(Item.class, element)));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testElementTypes()
+    {
+        Json json = Json.instance();
+        assertEquals(List.of(), map(json, new TypeToken<Integer>() {}, " [ ] "));
+        assertEquals(List.of(1, 2, 3), map(json, new TypeToken<Integer>() {}, "[1, 2 ,3]"));
+        assertEquals(List.of("a,\"b", "]", "[,"), map(json, new TypeToken<String>() {}, "[\"a,\\\"b\", \"]\", \"[,\"]"));
+        assertEquals(List.of(List.of(1, 2), List.of(), List.of(3)), map(json, new TypeToken<List<Integer>>() {}, "[[1,2],[],[3]]"));
+        assertEquals(List.of(List.of(List.of("x")), List.of()), map(json, new TypeToken<List<List<String>>>() {}, "[[[\"x\"]],[]]"));
+
+        assertThrows(RuntimeException.class, () -> map(json, new TypeToken<Integer>() {}, "{\"a\": 1}"));
+        assertThrows(RuntimeException.class, () -> map(json, new TypeToken<Integer>() {}, "[1, 2,]"));
+        assertThrows(RuntimeException.class, () -> map(json, new TypeToken<Integer>() {}, "[1 2]"));
+        assertThrows(RuntimeException.class, () -> map(json, new TypeToken<List<Integer>>() {}, "[[1, 2], [3]"));
+    }
+
+    private static <T> List<T> map(Json json, TypeToken<T> type, String text)
+    {
+        return ArrayElements.map(ByteBuffer.wrap(text.getBytes(UTF_8)), 1, element -> json.deserialize(type, element));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.JsonValue.JsonArray;
+import io.starburst.json.JsonValue.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static io.starburst.json.EdgeCases.FLOATS;
+import static io.starburst.json.EdgeCases.UNICODE_ESCAPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCompactJsonValue
+{
+    private static final Json JSON = Json.builder().add(JsonValue.instance()).build();
+    private static final Json COMPACT_JSON = Json.builder().add(JsonValue.compactInstance()).build();
+
+    public record Holder(String name, JsonObject value) {}
+
+    @Test
+    public void testMatchesEager()
+            throws IOException, URISyntaxException
+    {
+        for (String json : List.of(JsonExamples.GLOSSARY, JsonExamples.MENU, JsonExamples.WIDGET, JsonExamples.WEB_APP, JsonExamples.MENU_ALT, FLOATS, UNICODE_ESCAPE, "[]", "{}", " 12 ", "\"x\"", "null")) {
+            assertMatchesEager(json);
+        }
+        assertMatchesEager(Files.readString(Path.of(getClass().getResource("/large.json").toURI())));
+    }
+
+    @Test
+    public void testNavigation()
+    {
+        String json = """
+                {"name": "a\\tb", "count": 12, "big": 12345678901234567890, "ratio": 1.5, "ok": true, "none": null,
+                 "tags": ["x", {"y": [1, -2]}, []], "nested": {"deep": {"value": "found"}}, "name": "last"}""";
+        JsonObject root = (JsonObject) COMPACT_JSON.deserialize(JsonValue.class, json);
+        assertEquals(List.of("name", "count", "big", "ratio", "ok", "none", "tags", "nested"), List.copyOf(root.value().keySet()));
+        // a repeated name keeps its last value
+        assertEquals(new StringToken("last"), root.value().get("name"));
+        assertEquals(NumberToken.of(12L), root.value().get("count"));
+        assertEquals("12345678901234567890", ((NumberToken) root.value().get("big")).bigDecimalValue().toString());
+        assertEquals(1.5, ((NumberToken) root.value().get("ratio")).value().doubleValue());
+        assertEquals(BooleanToken.TRUE, root.value().get("ok"));
+        assertEquals(NullToken.INSTANCE, root.value().get("none"));
+        assertTrue(root.value().containsKey("none"));
+        assertFalse(root.value().containsKey("missing"));
+        assertNull(root.value().get("missing"));
+
+        JsonArray tags = (JsonArray) root.value().get("tags");
+        assertEquals(3, tags.value().size());
+        JsonArray inner = (JsonArray) ((JsonObject) tags.value().get(1)).value().get("y");
+        assertEquals(List.of(NumberToken.of(1L), NumberToken.of(-2L)), inner.value());
+        assertEquals(List.of(), ((JsonArray) tags.value().get(2)).value());
+        assertThrows(IndexOutOfBoundsException.class, () -> tags.value().get(3));
+
+        JsonObject deep = (JsonObject) ((JsonObject) root.value().get("nested")).value().get("deep");
+        assertEquals(new StringToken("found"), deep.value().get("value"));
+        assertThrows(UnsupportedOperationException.class, () -> root.value().remove("name"));
+
+        // members are serialized in document order
+        assertEquals("{\"a\":[1,2.5,\"z\"],\"b\":{},\"c\":null}", COMPACT_JSON.serializeToString(COMPACT_JSON.deserialize(JsonValue.class, "{\"a\": [1, 2.5, \"z\"], \"b\": {}, \"c\": null}")));
+    }
+
+    @Test
+    public void testNested()
+    {
+        Holder holder = COMPACT_JSON.deserialize(Holder.class, "{\"name\": \"n\", \"value\": {\"a\": [1, {\"b\": 2}]}}");
+        assertEquals("n", holder.name());
+        assertEquals(JSON.deserialize(JsonValue.class, "{\"a\": [1, {\"b\": 2}]}"), holder.value());
+        assertEquals(new Holder("x", new JsonObject(Map.of())), COMPACT_JSON.deserialize(Holder.class, "{\"value\": {}, \"name\": \"x\"}"));
+    }
+
+    private static void assertMatchesEager(String json)
+    {
+        JsonValue<?> eager = JSON.deserialize(JsonValue.class, json);
+        JsonValue<?> compact = COMPACT_JSON.deserialize(JsonValue.class, json);
+        assertEquals(eager, compact);
+        assertEquals(compact, eager);
+        assertEquals(eager, JSON.deserialize(JsonValue.class, COMPACT_JSON.serializeToString(compact)));
+    }
+}
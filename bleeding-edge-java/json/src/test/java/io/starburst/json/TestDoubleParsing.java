@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonReader.Event;
+import io.starburst.json.util.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static io.starburst.json.EdgeCases.FLOATS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestDoubleParsing
+{
+    @Test
+    public void testEdgeCases()
+    {
+        List<String> numbers = List.of(
+                "0", "-0", "0.0", "-0.0e10", "1", "-1", "1.", ".5", "+2.5", "1E+2", "1e-2",
+                // 2^53 + 1 and friends - halfway cases that must round to even
+                "9007199254740993", "9007199254740992", "9007199254740995", "1e23", "8.589973e9",
+                // smallest/largest normal and subnormal values and their rounding boundaries
+                "2.2250738585072011e-308", "2.2250738585072012e-308", "2.2250738585072014e-308",
+                "4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-400",
+                "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e400", "1e99999999999",
+                // 19 digits fit the fast path, 20 do not
+                "9999999999999999999", "18446744073709551615", "18446744073709551616e-10", "123456789012345678901234567890e-30",
+                "0.000000000000000000000000000000000000001234567890123456789");
+        for (String number : numbers) {
+            assertParsesLikeJdk(number);
+        }
+        for (String number : List.of("", "-", ".", "e5", "1e", "1e+", "1.2.3", "1-2")) {
+            assertThrows(NumberFormatException.class, () -> StringUtils.parseDouble(number), number);
+        }
+    }
+
+    @Test
+    public void testRandomDifferential()
+    {
+        Random random = new Random(0xdeadbeefL);
+        for (int i = 0; i < 1_000_000; ++i) {
+            String number = switch (i % 4) {
+                // shortest round trip representations of arbitrary bit patterns
+                case 0 -> Double.toString(Double.longBitsToDouble(random.nextLong()));
+                // typical telemetry - a few significant digits at a modest scale
+                case 1 -> Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+                // up to 19 arbitrary digits with an arbitrary exponent
+                case 2 -> {
+                    StringBuilder digits = new StringBuilder();
+                    int count = 1 + random.nextInt(19);
+                    for (int digit = 0; digit < count; ++digit) {
+                        digits.append((char) ('0' + random.nextInt(10)));
+                    }
+                    if (random.nextBoolean()) {
+                        digits.insert(random.nextInt(digits.length() + 1), '.');
+                    }
+                    yield digits.append('e').append(random.nextInt(700) - 350).toString();
+                }
+                default -> (random.nextLong() >>> random.nextInt(64)) + "e" + (random.nextInt(60) - 30);
+            };
+            if (!number.contains("NaN") && !number.contains("Infinity")) {
+                assertParsesLikeJdk(number);
+            }
+        }
+    }
+
+    @Test
+    public void testReaderValues()
+    {
+        JsonReader reader = JsonReader.of(FLOATS);
+        int count = 0;
+        Event event;
+        while ((event = reader.nextEvent()) != Event.END) {
+            if (event == Event.NUMBER) {
+                assertEquals(Double.parseDouble(reader.numberText().toString()), reader.doubleValue());
+                ++count;
+            }
+        }
+        assertEquals(FLOATS.chars().filter(c -> c == ',').count() + 1, count);
+    }
+
+    private static void assertParsesLikeJdk(String number)
+    {
+        assertEquals(Double.doubleToRawLongBits(Double.parseDouble(number)), Double.doubleToRawLongBits(StringUtils.parseDouble(number)), number);
+    }
+}
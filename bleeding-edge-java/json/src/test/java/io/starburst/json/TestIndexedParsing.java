@@ -0,0 +1,254 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.StringSliceToken;
+import io.starburst.json.JsonToken.StringToken;
+import io.starburst.json.util.AsciiSlice;
+import io.starburst.json.util.BlockClassifier;
+import io.starburst.json.util.StringUtils;
+import io.starburst.json.util.StructuralIndex;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.starburst.json.EdgeCases.FLOATS;
+import static io.starburst.json.EdgeCases.UNICODE_ESCAPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestIndexedParsing
+{
+    public record Person(String firstName, int age) {}
+
+    private static final String[] STRING_PARTS = {"a", "xyz", " ", "\\\"", "\\\\", "\\\\\\\\", "\\\\\\\"", "\\n", "\\u00e9", "é", "😃", "{", "}", "[", "]", ":", ",", "true", "12"};
+
+    @Test
+    public void testExamples()
+    {
+        for (String json : List.of(JsonExamples.GLOSSARY, JsonExamples.MENU, JsonExamples.WIDGET, JsonExamples.WEB_APP, JsonExamples.MENU_ALT, FLOATS, UNICODE_ESCAPE)) {
+            assertMatchesStandard(json.getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void testLargeFile()
+            throws IOException, URISyntaxException
+    {
+        Path path = Path.of(getClass().getResource("/large.json").toURI());
+        assertMatchesStandard(Files.readAllBytes(path));
+    }
+
+    @Test
+    public void testRandomDocuments()
+    {
+        Random random = new Random(1234);
+        for (int i = 0; i < 500; ++i) {
+            StringBuilder json = new StringBuilder();
+            appendValue(json, random, 0);
+            assertMatchesStandard(json.toString().getBytes(UTF_8));
+        }
+    }
+
+    @Test
+    public void testBackslashRunsAcrossBlocks()
+    {
+        // runs of backslashes of every length ending at every offset around a block boundary
+        for (int run = 0; run < 10; ++run) {
+            for (int padding = 40; padding < BlockClassifier.BLOCK_SIZE + 8; ++padding) {
+                String json = "[" + " ".repeat(padding) + "\"" + "\\\\".repeat(run) + "\\\"x\", \"" + "\\\\".repeat(run) + "\",1]";
+                assertMatchesStandard(json.getBytes(UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testDirectBuffer()
+    {
+        byte[] utf8 = JsonExamples.WEB_APP.getBytes(UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length + 3);
+        direct.put("xx ".getBytes(UTF_8)).put(utf8).flip().position(2);
+        List<JsonToken> expected = JsonParser.instance().parse(utf8).toList();
+        assertEquals(expected, JsonParser.indexed().parse(direct).toList());
+    }
+
+    @Test
+    public void testClassifiersAgree()
+    {
+        Random random = new Random(4321);
+        byte[] alphabet = "{}[]:,\"\\ \t\r\nazAZ09-.\u007f".getBytes(UTF_8);
+        byte[] block = new byte[BlockClassifier.BLOCK_SIZE];
+        long[] expected = new long[BlockClassifier.MASK_COUNT];
+        long[] actual = new long[BlockClassifier.MASK_COUNT];
+        for (int i = 0; i < 10_000; ++i) {
+            for (int j = 0; j < block.length; ++j) {
+                block[j] = random.nextBoolean() ? alphabet[random.nextInt(alphabet.length)] : (byte) random.nextInt();
+            }
+            BlockClassifier.swar().classify(block, 0, expected);
+            BlockClassifier.instance().classify(block, 0, actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testStructuralPositions()
+    {
+        String json = "{\"a\\\"}\" : [1, true,\"x\"]}";
+        StructuralIndex index = StructuralIndex.of(ByteBuffer.wrap(json.getBytes(UTF_8)));
+        List<Integer> positions = new ArrayList<>();
+        for (int position = index.next(); position >= 0; position = index.next()) {
+            positions.add(position);
+        }
+        assertEquals(List.of(0, 1, 8, 10, 11, 12, 14, 18, 19, 22, 23), positions);
+    }
+
+    @Test
+    public void testInvalid()
+    {
+        for (String json : List.of("[truex]", "[1x]", "[nul]", "{\"a\":\"b}", "[1\"a\"]", "[@]")) {
+            assertThrows(RuntimeException.class, () -> JsonParser.indexed().parse(json.getBytes(UTF_8)).toList(), json);
+        }
+    }
+
+    @Test
+    public void testDeserialize()
+    {
+        Json json = Json.builder().withIndexedParsing().withDeserializationNaming(JsonNaming.CAMEL_CASE).build();
+        Person person = json.deserialize(Person.class, "{\"first_name\":\"Jo\",\"age\":42}".getBytes(UTF_8));
+        assertEquals(new Person("Jo", 42), person);
+    }
+
+    @Test
+    public void testStringRuns()
+    {
+        // an escape or multibyte char at every offset of strings that span several 8 byte words and scratch chunks
+        for (String special : List.of("\\\"", "\\\\", "\\n", "\\u00e9", "é", "€", "😃")) {
+            for (int before = 0; before < 20; ++before) {
+                for (int after = 0; after < 160; after += 11) {
+                    String json = "[\"" + "a".repeat(before) + special + "b".repeat(after) + "\", \"" + "c".repeat(before + after) + "\"]";
+                    byte[] utf8 = json.getBytes(UTF_8);
+                    assertMatchesStandard(utf8);
+
+                    // any byte order, heap or direct
+                    String expected = ((StringToken) JsonParser.instance().parse(utf8).toList().get(1)).value();
+                    for (ByteBuffer buffer : List.of(ByteBuffer.wrap(utf8).order(ByteOrder.LITTLE_ENDIAN), ByteBuffer.allocateDirect(utf8.length).put(utf8).flip())) {
+                        StringBuilder builder = new StringBuilder();
+                        int end = StringUtils.scanString(builder, buffer, 2);
+                        assertEquals(expected, builder.toString());
+                        assertEquals(',', buffer.get(end));
+                    }
+                }
+            }
+        }
+        assertThrows(RuntimeException.class, () -> StringUtils.scanString(new StringBuilder(), ByteBuffer.wrap("abcdefghijklmnop".getBytes(UTF_8)), 0));
+        assertThrows(RuntimeException.class, () -> StringUtils.scanString(new StringBuilder(), ByteBuffer.wrap(new byte[] {'a', (byte) 0xc3, '"'}), 0));
+    }
+
+    @Test
+    public void testSlicing()
+    {
+        byte[] utf8 = "{\"plain\": \"abc def\", \"escaped\": \"a\\nb\", \"accented\": \"café\", \"empty\": \"\"}".getBytes(UTF_8);
+        List<JsonToken> strings = JsonParser.slicing().parse(utf8)
+                .filter(token -> (token instanceof StringToken) || (token instanceof StringSliceToken))
+                .toList();
+        // only the plain strings are views of the input
+        assertEquals(List.of(new StringSliceToken("abc def"), new StringToken("a\nb"), new StringToken("café"), new StringSliceToken("")), strings);
+        StringSliceToken slice = (StringSliceToken) strings.get(0);
+        assertTrue(slice.chars() instanceof AsciiSlice);
+        assertEquals(new StringToken("abc def"), slice.toStringToken());
+        assertEquals("abc def".hashCode(), slice.hashCode());
+
+        // the default parsers never slice
+        assertEquals(List.of(new StringToken("abc def"), new StringToken("a\nb"), new StringToken("café"), new StringToken("")), JsonParser.indexed().parse(utf8)
+                .filter(token -> token instanceof StringToken)
+                .toList());
+
+        // re-printing copies the input's chars straight to the output
+        StringBuilder printed = new StringBuilder();
+        JsonParser.slicing().parse(utf8).forEach(token -> JsonPrinter.instance().print(token, printed));
+        assertEquals("{\"plain\":\"abc def\",\"escaped\":\"a\\nb\",\"accented\":\"café\",\"empty\":\"\"}", printed.toString());
+
+        JsonReader reader = JsonReader.slicing(ByteBuffer.wrap(utf8));
+        assertEquals(JsonReader.Event.BEGIN_OBJECT, reader.nextEvent());
+        assertEquals(JsonReader.Event.NAME, reader.nextEvent());
+        assertEquals("plain", reader.currentName());
+        assertEquals(JsonReader.Event.STRING, reader.nextEvent());
+        assertEquals("abc def", reader.stringValue());
+        assertEquals("bc", reader.stringChars().subSequence(1, 3).toString());
+    }
+
+    private static void assertMatchesStandard(byte[] utf8)
+    {
+        List<JsonToken> expected = JsonParser.instance().parse(utf8).toList();
+        assertEquals(expected, JsonParser.tokenStream(JsonReader.indexed(ByteBuffer.wrap(utf8), BlockClassifier.swar())).toList());
+        assertEquals(expected, JsonParser.tokenStream(JsonReader.indexed(ByteBuffer.wrap(utf8), BlockClassifier.instance())).toList());
+        assertEquals(expected, JsonParser.slicing().parse(utf8)
+                .map(token -> (token instanceof StringSliceToken slice) ? slice.toStringToken() : token)
+                .toList());
+    }
+
+    private static void appendValue(StringBuilder json, Random random, int depth)
+    {
+        int kind = random.nextInt((depth < 6) ? 7 : 5);
+        switch (kind) {
+            case 0 -> json.append(random.nextBoolean() ? "true" : "false");
+            case 1 -> json.append("null");
+            case 2 -> json.append(random.nextBoolean() ? random.nextLong() : random.nextDouble() * random.nextInt());
+            case 3, 4 -> appendString(json, random);
+            case 5 -> {
+                json.append('[');
+                int count = random.nextInt(6);
+                for (int i = 0; i < count; ++i) {
+                    json.append((i > 0) ? "," : "").append(" ".repeat(random.nextInt(3)));
+                    appendValue(json, random, depth + 1);
+                }
+                json.append(']');
+            }
+            default -> {
+                json.append('{');
+                int count = random.nextInt(6);
+                for (int i = 0; i < count; ++i) {
+                    json.append((i > 0) ? "," : "").append("\n".repeat(random.nextInt(2)));
+                    appendString(json, random);
+                    json.append(random.nextBoolean() ? ":" : " : ");
+                    appendValue(json, random, depth + 1);
+                }
+                json.append('}');
+            }
+        }
+    }
+
+    private static void appendString(StringBuilder json, Random random)
+    {
+        json.append('"');
+        int count = random.nextInt(8);
+        for (int i = 0; i < count; ++i) {
+            json.append(STRING_PARTS[random.nextInt(STRING_PARTS.length)]);
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJsonDeserializerProcessor
+{
+    public record Item(int id, String name, List<Integer> tags) {}
+
+    private static final List<Item> ITEMS = IntStream.range(0, 200)
+            .mapToObj(i -> new Item(i, "item \"" + i + "\"", List.of(i, -i)))
+            .toList();
+
+    @Test
+    public void testValues()
+    {
+        Json json = Json.instance();
+        String input = ITEMS.stream().map(json::serializeToString).collect(Collectors.joining("\n", "", "\n"));
+        for (int chunkSize : List.of(1, 7, 100, input.length())) {
+            Flow.Processor<ByteBuffer, Item> processor = json.deserializingProcessor(Item.class);
+            Collector<Item> collector = run(processor, input, chunkSize);
+            assertNull(collector.error);
+            assertTrue(collector.completed);
+            assertEquals(ITEMS, collector.values, "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    public void testArrayElements()
+    {
+        Json json = Json.instance();
+        String input = " " + json.serializeToString(ITEMS) + " ";
+        for (int chunkSize : List.of(1, 7, 100, input.length())) {
+            Flow.Processor<ByteBuffer, Item> processor = json.deserializingArrayProcessor(Item.class);
+            Collector<Item> collector = run(processor, input, chunkSize);
+            assertNull(collector.error);
+            assertTrue(collector.completed);
+            assertEquals(ITEMS, collector.values, "chunk size " + chunkSize);
+        }
+
+        Collector<Integer> empty = run(json.deserializingArrayProcessor(Integer.class), "[ ]", 1);
+        assertTrue(empty.completed);
+        assertEquals(List.of(), empty.values);
+    }
+
+    @Test
+    public void testBackpressure()
+    {
+        Json json = Json.instance();
+        String input = " " + json.serializeToString(ITEMS) + " ";
+        int chunkSize = 16;
+        Flow.Processor<ByteBuffer, Item> processor = json.deserializingArrayProcessor(Item.class);
+        ChunkPublisher publisher = new ChunkPublisher(input.getBytes(UTF_8), chunkSize);
+        processor.subscribe(new Collector<>(0));
+        publisher.subscribe(processor);
+        assertEquals(0, publisher.requested);
+
+        Collector<Item> collector = new Collector<>(5);
+        processor = json.deserializingArrayProcessor(Item.class);
+        publisher = new ChunkPublisher(input.getBytes(UTF_8), chunkSize);
+        processor.subscribe(collector);
+        publisher.subscribe(processor);
+        assertEquals(ITEMS.subList(0, 5), collector.values);
+        // only the chunks up to the closing brace of the 5th item are read
+        String fifth = json.serializeToString(ITEMS.get(4));
+        int needed = ((input.indexOf(fifth) + fifth.length() - 1) / chunkSize) + 1;
+        assertEquals(needed, publisher.requested);
+
+        collector.subscription.request(5);
+        assertEquals(ITEMS.subList(0, 10), collector.values);
+        collector.subscription.request(Long.MAX_VALUE);
+        assertEquals(ITEMS, collector.values);
+        assertTrue(collector.completed);
+    }
+
+    @Test
+    public void testAsynchronous()
+            throws InterruptedException
+    {
+        Json json = Json.instance();
+        byte[] input = ITEMS.stream().map(json::serializeToString).collect(Collectors.joining(" ")).getBytes(UTF_8);
+        Flow.Processor<ByteBuffer, Item> processor = json.deserializingProcessor(Item.class);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Item> values = new ArrayList<>();
+        processor.subscribe(new Flow.Subscriber<>()
+        {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription)
+            {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Item item)
+            {
+                values.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable)
+            {
+                latch.countDown();
+            }
+
+            @Override
+            public void onComplete()
+            {
+                latch.countDown();
+            }
+        });
+        try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < input.length; i += 10) {
+                publisher.submit(ByteBuffer.wrap(input, i, Math.min(10, input.length - i)));
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(ITEMS, values);
+    }
+
+    @Test
+    public void testErrors()
+    {
+        Json json = Json.instance();
+        for (String input : List.of("[1, 2", "[1, 2,]", "[1 2]", "[1] 2", "{}", "")) {
+            Collector<Integer> collector = run(json.deserializingArrayProcessor(Integer.class), input, 1);
+            assertTrue(collector.error != null, input);
+        }
+        for (String input : List.of("1 2 {", "1, 2", "1 ]")) {
+            Collector<Integer> collector = run(json.deserializingProcessor(Integer.class), input, 1);
+            assertTrue(collector.error != null, input);
+        }
+
+        Collector<Integer> collector = run(json.deserializingProcessor(Integer.class), "", 1);
+        assertTrue(collector.completed);
+        assertEquals(List.of(), collector.values);
+    }
+
+    private static <T> Collector<T> run(Flow.Processor<ByteBuffer, T> processor, String input, int chunkSize)
+    {
+        Collector<T> collector = new Collector<>(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        new ChunkPublisher(input.getBytes(UTF_8), chunkSize).subscribe(processor);
+        return collector;
+    }
+
+    // publishes synchronously from within request()
+    private static class ChunkPublisher
+            implements Flow.Publisher<ByteBuffer>
+    {
+        private final byte[] input;
+        private final int chunkSize;
+        private int position;
+        private int requested;
+
+        private ChunkPublisher(byte[] input, int chunkSize)
+        {
+            this.input = input;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber)
+        {
+            subscriber.onSubscribe(new Flow.Subscription()
+            {
+                private boolean cancelled;
+
+                @Override
+                public void request(long n)
+                {
+                    for (long i = 0; (i < n) && !cancelled; ++i) {
+                        ++requested;
+                        if (position >= input.length) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                        int length = Math.min(chunkSize, input.length - position);
+                        ByteBuffer chunk = ByteBuffer.wrap(input, position, length);
+                        position += length;
+                        subscriber.onNext(chunk);
+                    }
+                }
+
+                @Override
+                public void cancel()
+                {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class Collector<T>
+            implements Flow.Subscriber<T>
+    {
+        private final long initialRequest;
+        private final List<T> values = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        private Collector(long initialRequest)
+        {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(T item)
+        {
+            values.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete()
+        {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonDeserializerCollector.CollectingConsumer;
+import io.starburst.json.JsonReader.Event;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.models.GlossaryContainer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestJsonFeeder
+{
+    @Test
+    public void testChunkedInput()
+    {
+        String json = JsonExamples.GLOSSARY + " [1, -2.5e3, \"café \\u00e9\\n\", true, false, null, {}] 12345";
+        byte[] utf8 = json.getBytes(UTF_8);
+        List<JsonToken> expected = JsonParser.instance().parse(utf8).toList();
+        for (int chunkSize : List.of(1, 2, 3, 7, 64, utf8.length)) {
+            JsonFeeder feeder = JsonFeeder.instance();
+            List<JsonToken> tokens = new ArrayList<>();
+            for (int i = 0; i < utf8.length; i += chunkSize) {
+                feeder.feed(ByteBuffer.wrap(utf8, i, Math.min(chunkSize, utf8.length - i)));
+                assertEquals(Event.NEED_MORE_INPUT, feeder.drain(tokens::add));
+            }
+            feeder.endOfInput();
+            assertEquals(Event.END, feeder.drain(tokens::add));
+            assertEquals(expected, tokens, "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    public void testCollectingConsumer()
+    {
+        byte[] utf8 = JsonExamples.GLOSSARY.getBytes(UTF_8);
+        CollectingConsumer<GlossaryContainer> collectingConsumer = JsonDeserializerCollector.collectingConsumer(JsonDeserializer.instance(), GlossaryContainer.class);
+        JsonFeeder feeder = JsonFeeder.instance();
+        for (int i = 0; i < utf8.length; i += 100) {
+            feeder.feed(ByteBuffer.wrap(utf8, i, Math.min(100, utf8.length - i)));
+            feeder.drain(collectingConsumer);
+        }
+        feeder.endOfInput();
+        assertEquals(Event.END, feeder.drain(collectingConsumer));
+        assertEquals(Json.instance().deserialize(GlossaryContainer.class, JsonExamples.GLOSSARY), collectingConsumer.value());
+    }
+
+    @Test
+    public void testPartialTokens()
+    {
+        JsonFeeder feeder = JsonFeeder.instance();
+        feeder.feed(utf8("{\"na"));
+        assertEquals(Event.BEGIN_OBJECT, feeder.nextEvent());
+        assertEquals(Event.NEED_MORE_INPUT, feeder.nextEvent());
+        feeder.feed(utf8("me\"   "));
+        // could still be a string value - the ':' decides
+        assertEquals(Event.NEED_MORE_INPUT, feeder.nextEvent());
+        feeder.feed(utf8(": tr"));
+        assertEquals(Event.NAME, feeder.nextEvent());
+        assertEquals("name", feeder.currentName());
+        assertEquals(Event.NEED_MORE_INPUT, feeder.nextEvent());
+        feeder.feed(utf8("ue, \"n\": 12"));
+        assertEquals(Event.TRUE, feeder.nextEvent());
+        assertEquals(Event.VALUE_SEPARATOR, feeder.nextEvent());
+        assertEquals(Event.NAME, feeder.nextEvent());
+        // more digits may follow
+        assertEquals(Event.NEED_MORE_INPUT, feeder.nextEvent());
+        feeder.feed(utf8("34}"));
+        assertEquals(Event.NUMBER, feeder.nextEvent());
+        assertEquals(1234, feeder.intValue());
+        assertEquals(Event.END_OBJECT, feeder.nextEvent());
+        assertEquals(Event.NEED_MORE_INPUT, feeder.nextEvent());
+        feeder.endOfInput();
+        assertEquals(Event.END, feeder.nextEvent());
+        assertThrows(RuntimeException.class, () -> feeder.feed(utf8("1")));
+
+        JsonFeeder number = JsonFeeder.instance();
+        number.feed(utf8("42"));
+        assertEquals(Event.NEED_MORE_INPUT, number.nextEvent());
+        number.endOfInput();
+        assertEquals(Event.NUMBER, number.nextEvent());
+        assertEquals(42, number.intValue());
+
+        JsonFeeder string = JsonFeeder.instance();
+        string.feed(utf8("[\"abc"));
+        string.endOfInput();
+        assertEquals(Event.BEGIN_ARRAY, string.nextEvent());
+        assertThrows(RuntimeException.class, string::nextEvent);
+
+        JsonFeeder literal = JsonFeeder.instance();
+        literal.feed(utf8("[tx"));
+        assertEquals(Event.BEGIN_ARRAY, literal.nextEvent());
+        assertThrows(RuntimeException.class, literal::nextEvent);
+    }
+
+    @Test
+    public void testLargeString()
+    {
+        // a string much larger than the buffer fed a byte at a time
+        String value = "x\\\"y".repeat(50_000);
+        byte[] utf8 = ("[\"" + value + "\"]").getBytes(UTF_8);
+        JsonFeeder feeder = JsonFeeder.instance();
+        List<JsonToken> tokens = new ArrayList<>();
+        for (byte b : utf8) {
+            feeder.feed(ByteBuffer.wrap(new byte[] {b}));
+            feeder.drain(tokens::add);
+        }
+        feeder.endOfInput();
+        feeder.drain(tokens::add);
+        assertEquals(JsonParser.instance().parse(utf8).toList(), tokens);
+    }
+
+    @Test
+    public void testLazyNumbers()
+    {
+        JsonFeeder feeder = JsonFeeder.instance().withLazyNumbers();
+        feeder.feed(utf8("[0.1000000000000000000001, 7]"));
+        feeder.endOfInput();
+        List<JsonToken> tokens = new ArrayList<>();
+        assertEquals(Event.END, feeder.drain(tokens::add));
+        assertEquals(new BigDecimal("0.1000000000000000000001"), ((NumberToken) tokens.get(1)).bigDecimalValue());
+        assertEquals(NumberToken.of(7L), tokens.get(3));
+    }
+
+    @Test
+    public void testSkipValue()
+    {
+        String json = "{\"a\": {\"x\": [1, \"}\\\"]\", {\"y\": null}]}, \"b\": 12, \"c\": [], \"d\": \"s\", \"e\": true, \"f\": -1.5e3}";
+        byte[] utf8 = json.getBytes(UTF_8);
+        List<Object> expected = skipAllButB(JsonReader.of(json), () -> {});
+        for (int chunkSize = 1; chunkSize <= utf8.length; ++chunkSize) {
+            JsonFeeder feeder = JsonFeeder.instance();
+            int size = chunkSize;
+            int[] fed = {0};
+            List<Object> events = skipAllButB(feeder, () -> {
+                if (fed[0] == utf8.length) {
+                    feeder.endOfInput();
+                }
+                else {
+                    feeder.feed(ByteBuffer.wrap(utf8, fed[0], Math.min(size, utf8.length - fed[0])));
+                    fed[0] += Math.min(size, utf8.length - fed[0]);
+                }
+            });
+            assertEquals(expected, events);
+        }
+
+        // an empty array is only known once the ']' has been fed
+        JsonFeeder feeder = JsonFeeder.instance();
+        feeder.feed(utf8("[  "));
+        assertEquals(Event.BEGIN_ARRAY, feeder.nextEvent());
+        feeder.skipValue();
+        assertEquals(Event.NEED_MORE_INPUT, feeder.currentEvent());
+        feeder.feed(utf8(" ]"));
+        assertEquals(Event.END_ARRAY, feeder.nextEvent());
+
+        JsonFeeder truncated = JsonFeeder.instance();
+        truncated.feed(utf8("{\"a\": [1, 2"));
+        assertEquals(Event.BEGIN_OBJECT, truncated.nextEvent());
+        assertEquals(Event.NAME, truncated.nextEvent());
+        truncated.skipValue();
+        truncated.endOfInput();
+        assertThrows(RuntimeException.class, truncated::nextEvent);
+    }
+
+    // events (and the values of "b") with every other member skipped. needMoreInput is run on NEED_MORE_INPUT.
+    private static List<Object> skipAllButB(JsonReader reader, Runnable needMoreInput)
+    {
+        List<Object> events = new ArrayList<>();
+        Event event = reader.nextEvent();
+        while (event != Event.END) {
+            switch (event) {
+                case NEED_MORE_INPUT -> needMoreInput.run();
+                case NAME -> {
+                    events.add(reader.currentName());
+                    if (!reader.currentName().equals("b")) {
+                        reader.skipValue();
+                        if (reader.currentEvent() != Event.NEED_MORE_INPUT) {
+                            events.add(reader.currentEvent());
+                        }
+                    }
+                }
+                case NUMBER -> events.add(reader.numberValue());
+                default -> events.add(event);
+            }
+            event = reader.nextEvent();
+        }
+        return events;
+    }
+
+    private static ByteBuffer utf8(String s)
+    {
+        return ByteBuffer.wrap(s.getBytes(UTF_8));
+    }
+}
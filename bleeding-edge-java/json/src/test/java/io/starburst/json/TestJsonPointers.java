@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.util.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestJsonPointers
+{
+    public record Item(String name, int count) {}
+
+    private static final String DOCUMENT = """
+            {
+              "event": {"ts": "2022-11-01T10:00:00Z", "payload": {"big": [1, 2, {"deep": "\\q not decoded"}]}},
+              "items": [{"name": "a", "count": 1}, {"name": "b", "count": 2}, {"name": "c", "count": 3}],
+              "a/b": {"m~n": 1.5},
+              "user": {"name": "x", "id": 12345678901, "tags": ["t1", "t2"]},
+              "": true
+            }""";
+
+    @Test
+    public void testPointers()
+    {
+        Map<String, Type> pointers = Map.of(
+                "/user/id", long.class,
+                "/event/ts", String.class,
+                "/items/1", Item.class,
+                "/items/2/name", String.class,
+                "/user/tags", new TypeToken<List<String>>() {}.type(),
+                "/a~1b/m~0n", double.class,
+                "/", boolean.class,
+                "/missing", String.class,
+                "/items/7", Item.class,
+                "/user/name/below", String.class);
+        Map<String, Object> expected = Map.of(
+                "/user/id", 12345678901L,
+                "/event/ts", "2022-11-01T10:00:00Z",
+                "/items/1", new Item("b", 2),
+                "/items/2/name", "c",
+                "/user/tags", List.of("t1", "t2"),
+                "/a~1b/m~0n", 1.5,
+                "/", true);
+
+        Json json = Json.instance();
+        byte[] utf8 = DOCUMENT.getBytes(UTF_8);
+        assertEquals(expected, json.deserializePointers(pointers, DOCUMENT));
+        assertEquals(expected, json.deserializePointers(pointers, utf8));
+        assertEquals(expected, json.deserializePointers(pointers, new StringReader(DOCUMENT)));
+        assertEquals(expected, json.deserializePointers(pointers, new ByteArrayInputStream(utf8)));
+        assertEquals(expected, Json.builder().withIndexedParsing().build().deserializePointers(pointers, utf8));
+
+        assertEquals(Map.of("", List.of(1, 2)), json.deserializePointers(Map.of("", new TypeToken<List<Integer>>() {}.type()), "[1, 2]"));
+        assertEquals(Map.of(), json.deserializePointers(Map.of("/0", int.class), "[]"));
+    }
+
+    @Test
+    public void testStopsWhenResolved()
+    {
+        // nothing after the last pointer is read - not even the broken tail
+        String truncated = "{\"user\": {\"id\": 7, \"name\": \"x\"}, \"rest\": [1, 2, {\"a\"";
+        Json json = Json.instance();
+        assertEquals(Map.of("/user/id", 7), json.deserializePointers(Map.of("/user/id", int.class), truncated));
+        assertEquals(Map.of("/user/id", 7), Json.builder().withIndexedParsing().build().deserializePointers(Map.of("/user/id", int.class), truncated.getBytes(UTF_8)));
+        assertThrows(RuntimeException.class, () -> json.deserializePointers(Map.of("/user/id", int.class, "/other", int.class), truncated));
+    }
+
+    @Test
+    public void testMissingSeparators()
+    {
+        Json json = Json.instance();
+        assertThrows(RuntimeException.class, () -> json.deserializePointers(Map.of("/b", int.class), "{\"a\": 1 \"b\": 2}"));
+        assertThrows(RuntimeException.class, () -> json.deserializePointers(Map.of("/1", int.class), "[1 2]"));
+    }
+
+    @Test
+    public void testUnknownFieldsInMatchedValues()
+    {
+        String jsonText = "{\"item\": {\"name\": \"a\", \"color\": [\"red\"], \"count\": 4}}";
+        Map<String, Type> pointers = Map.of("/item", Item.class);
+        assertThrows(RuntimeException.class, () -> Json.instance().deserializePointers(pointers, jsonText));
+        assertEquals(Map.of("/item", new Item("a", 4)), Json.builder().withIgnoredUnknownFields().build().deserializePointers(pointers, jsonText));
+    }
+
+    @Test
+    public void testParse()
+    {
+        assertEquals(List.of(), JsonPointers.parse(""));
+        assertEquals(List.of(""), JsonPointers.parse("/"));
+        assertEquals(List.of("a/b", "c~d", "", "0"), JsonPointers.parse("/a~1b/c~0d//0"));
+        assertEquals(List.of("~1"), JsonPointers.parse("/~01"));
+        assertThrows(RuntimeException.class, () -> JsonPointers.parse("a"));
+        assertThrows(RuntimeException.class, () -> JsonPointers.parse("/a~2"));
+        assertThrows(RuntimeException.class, () -> JsonPointers.parse("/a~"));
+        assertThrows(RuntimeException.class, () -> Json.instance().deserializePointers(Map.of("/a", int.class, "/a/b", int.class), "{}"));
+    }
+}
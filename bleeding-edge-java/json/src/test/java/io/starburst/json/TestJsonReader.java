@@ -0,0 +1,297 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonReader.Event;
+import io.starburst.json.JsonToken.BeginArrayToken;
+import io.starburst.json.JsonToken.BooleanToken;
+import io.starburst.json.JsonToken.NullToken;
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.JsonToken.ObjectNameToken;
+import io.starburst.json.JsonToken.ValueSeparatorToken;
+import io.starburst.json.util.SymbolTable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJsonReader
+{
+    @Test
+    public void testEvents()
+    {
+        JsonReader reader = JsonReader.of("{\"id\" : 9007199254740993, \"ratio\":-1.25e2, \"name\":\"a\\tb\", \"flags\":[true,false,null]}");
+        assertEquals(Event.BEGIN_OBJECT, reader.nextEvent());
+        assertEquals(Event.NAME, reader.nextEvent());
+        assertEquals("id", reader.currentName());
+        assertEquals(Event.NUMBER, reader.nextEvent());
+        assertTrue(reader.isIntegral());
+        assertEquals(9007199254740993L, reader.longValue());
+        assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+        assertEquals(Event.NAME, reader.nextEvent());
+        assertEquals("ratio", reader.currentName());
+        assertEquals(Event.NUMBER, reader.nextEvent());
+        assertFalse(reader.isIntegral());
+        assertEquals(-125.0, reader.doubleValue());
+        assertEquals(-125, reader.intValue());
+        assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+        assertEquals(Event.NAME, reader.nextEvent());
+        assertEquals(Event.STRING, reader.nextEvent());
+        assertEquals("a\tb", reader.stringValue());
+        assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+        assertEquals(Event.NAME, reader.nextEvent());
+        assertEquals(Event.BEGIN_ARRAY, reader.nextEvent());
+        assertEquals(Event.TRUE, reader.nextEvent());
+        assertTrue(reader.booleanValue());
+        assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+        assertEquals(Event.FALSE, reader.nextEvent());
+        assertFalse(reader.booleanValue());
+        assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+        assertEquals(Event.NULL, reader.nextEvent());
+        assertEquals(Event.END_ARRAY, reader.nextEvent());
+        assertEquals(Event.END_OBJECT, reader.nextEvent());
+        assertEquals(Event.END, reader.nextEvent());
+        assertEquals(Event.END, reader.nextEvent());
+    }
+
+    @Test
+    public void testAccessorMismatch()
+    {
+        JsonReader reader = JsonReader.of("[\"text\"]");
+        assertEquals(Event.BEGIN_ARRAY, reader.nextEvent());
+        assertThrows(RuntimeException.class, reader::stringValue);
+        assertEquals(Event.STRING, reader.nextEvent());
+        assertThrows(RuntimeException.class, reader::currentName);
+        assertThrows(RuntimeException.class, reader::longValue);
+    }
+
+    @Test
+    public void testSkipValue()
+    {
+        // skipped values aren't decoded - the bad escape and the bad literal go unnoticed
+        String json = "{\"a\": {\"b\": [1, \"]}\\\"\\q\", {}], \"c\": nul}, \"d\": \"x\\\"y\", \"e\": -12.5e3, \"f\": [[]], \"g\": true}";
+        for (JsonReader reader : List.of(JsonReader.of(json), JsonReader.indexed(json.getBytes(UTF_8)))) {
+            assertEquals(Event.BEGIN_OBJECT, reader.nextEvent());
+            for (String name : List.of("a", "d", "e", "f")) {
+                assertEquals(Event.NAME, reader.nextEvent());
+                assertEquals(name, reader.currentName());
+                reader.skipValue();
+                assertEquals(Event.NULL, reader.currentEvent());
+                assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+            }
+            assertEquals(Event.NAME, reader.nextEvent());
+            assertEquals(Event.TRUE, reader.nextEvent());
+            assertEquals(Event.END_OBJECT, reader.nextEvent());
+            assertEquals(Event.END, reader.nextEvent());
+        }
+
+        for (JsonReader reader : List.of(JsonReader.of("[1, [2, {}], \"x\"]"), JsonReader.indexed("[1, [2, {}], \"x\"]".getBytes(UTF_8)))) {
+            assertEquals(Event.BEGIN_ARRAY, reader.nextEvent());
+            assertTrue(reader.skipValue());
+            assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+            assertTrue(reader.skipValue());
+            assertEquals(Event.VALUE_SEPARATOR, reader.nextEvent());
+            assertTrue(reader.skipValue());
+            assertEquals(Event.END_ARRAY, reader.nextEvent());
+        }
+        for (JsonReader reader : List.of(JsonReader.of("[ ]"), JsonReader.indexed("[ ]".getBytes(UTF_8)))) {
+            assertEquals(Event.BEGIN_ARRAY, reader.nextEvent());
+            assertFalse(reader.skipValue());
+            assertEquals(Event.END_ARRAY, reader.currentEvent());
+            assertEquals(Event.END, reader.nextEvent());
+        }
+
+        JsonReader reader = JsonReader.of("{\"a\": 1}");
+        reader.nextEvent();
+        assertThrows(RuntimeException.class, reader::skipValue);
+        reader = JsonReader.of("[1, ]");
+        reader.nextEvent();
+        reader.skipValue();
+        reader.nextEvent();
+        assertThrows(RuntimeException.class, reader::skipValue);
+        reader = JsonReader.of("{\"a\": [1, 2");
+        reader.nextEvent();
+        reader.nextEvent();
+        assertThrows(RuntimeException.class, reader::skipValue);
+    }
+
+    @Test
+    public void testNaming()
+    {
+        JsonReader reader = JsonReader.of("{\"firstName\":1}").withNaming(JsonNaming.SNAKE_CASE);
+        assertEquals(Event.BEGIN_OBJECT, reader.nextEvent());
+        assertEquals(Event.NAME, reader.nextEvent());
+        assertEquals("first_name", reader.currentName());
+    }
+
+    @Test
+    public void testMatchesTokenStream()
+    {
+        String json = JsonExamples.GLOSSARY;
+        assertEquals(JsonParser.instance().parse(json.chars()).toList(), JsonParser.tokenStream(JsonReader.of(json)).toList());
+    }
+
+    @Test
+    public void testNoAllocationPerEvent()
+    {
+        byte[] utf8 = IntStream.range(0, 10_000)
+                .mapToObj(i -> "{\"v\":" + i + ",\"ok\":true}")
+                .collect(Collectors.joining(",", "[", "]"))
+                .getBytes(UTF_8);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long sum = 0;
+        for (int warmup = 0; warmup < 20; ++warmup) {
+            sum += sumValues(utf8);
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        sum += sumValues(utf8);
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(21L * IntStream.range(0, 10_000).asLongStream().sum(), sum);
+        // a token per event would be well over 1MB - the cursor itself is a few hundred bytes
+        assertTrue(allocated < 10_000, "allocated " + allocated);
+    }
+
+    @Test
+    public void testSharedTokens()
+    {
+        List<JsonToken> parsed = JsonParser.instance().parse("[{\"a\":1},{\"a\":1},true,null,5000]".chars()).toList();
+        assertSame(BeginArrayToken.INSTANCE, parsed.get(0));
+        assertSame(parsed.get(2), parsed.get(7));     // "a"
+        assertSame(NumberToken.of(1L), parsed.get(3));
+        assertSame(parsed.get(3), parsed.get(8));
+        assertSame(BooleanToken.TRUE, parsed.get(11));
+        assertSame(NullToken.INSTANCE, parsed.get(13));
+        assertNotSame(parsed.get(15), JsonParser.instance().parse("5000".chars()).findFirst().orElseThrow());
+
+        List<JsonToken> serialized = JsonSerializer.instance().serialize(List.of(Optional.empty(), false, 7)).toList();
+        assertSame(BeginArrayToken.INSTANCE, serialized.get(0));
+        assertSame(NullToken.INSTANCE, serialized.get(1));
+        assertSame(ValueSeparatorToken.INSTANCE, serialized.get(2));
+        assertSame(BooleanToken.FALSE, serialized.get(3));
+        assertSame(NumberToken.of(7), serialized.get(5));
+        // the value's type is preserved
+        assertEquals(Integer.class, NumberToken.of((Number) 7).value().getClass());
+        assertSame(ObjectNameToken.of(new String("name")), ObjectNameToken.of("name"));
+    }
+
+    @Test
+    public void testStructuralTokensDoNotAllocate()
+    {
+        String element = "[[1,true,null],{},[false,1024,-128]]";
+        byte[] utf8 = String.join(",", Arrays.stream(new String[10_000]).map(__ -> element).toList()).getBytes(UTF_8);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int count = 0;
+        for (int warmup = 0; warmup < 20; ++warmup) {
+            count += countTokens(utf8);
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        count += countTokens(utf8);
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(21 * ((10_000 * 20) + 9_999), count);
+        assertTrue(allocated < 10_000, "allocated " + allocated);
+    }
+
+    @Test
+    public void testRepeatedNamesDoNotAllocate()
+    {
+        byte[] utf8 = IntStream.range(0, 10_000)
+                .mapToObj(i -> "{\"id\":1,\"firstName\":2,\"lastName\":3,\"emailAddress\":4,\"isActive\":5}")
+                .collect(Collectors.joining(",", "[", "]"))
+                .getBytes(UTF_8);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int length = 0;
+        for (int warmup = 0; warmup < 20; ++warmup) {
+            length += nameLengths(JsonReader.of(utf8));
+            length += nameLengths(JsonReader.indexed(utf8));
+        }
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        length += nameLengths(JsonReader.of(utf8));
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(41 * 10_000 * 39, length);
+        assertTrue(allocated < 10_000, "allocated " + allocated);
+    }
+
+    @Test
+    public void testSymbolTable()
+    {
+        SymbolTable symbols = SymbolTable.bounded(16, 8);
+        String first = symbols.symbol(new StringBuilder("name"));
+        assertSame(first, symbols.symbol(new StringBuilder("name")));
+        // more distinct symbols than slots - every result is still correct
+        for (int i = 0; i < 10_000; ++i) {
+            assertEquals("k" + i, symbols.symbol(new StringBuilder("k").append(i)));
+        }
+        // too long to be cached
+        StringBuilder longName = new StringBuilder("aVeryLongName");
+        assertNotSame(symbols.symbol(longName), symbols.symbol(longName));
+        assertEquals("aVeryLongName", symbols.symbol(longName));
+    }
+
+    private static int nameLengths(JsonReader reader)
+    {
+        int length = 0;
+        Event event;
+        while ((event = reader.nextEvent()) != Event.END) {
+            if (event == Event.NAME) {
+                length += reader.currentName().length();
+            }
+        }
+        return length;
+    }
+
+    private static int countTokens(byte[] utf8)
+    {
+        JsonReader reader = JsonReader.of(utf8);
+        int count = 0;
+        while (reader.nextEvent() != Event.END) {
+            if (reader.currentToken() != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static long sumValues(byte[] utf8)
+    {
+        JsonReader reader = JsonReader.of(utf8);
+        long sum = 0;
+        Event event;
+        while ((event = reader.nextEvent()) != Event.END) {
+            if (event == Event.NUMBER) {
+                sum += reader.longValue();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.util.Lines;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestLines
+{
+    public record Event(int id, String name, double value) {}
+
+    @Test
+    public void testSplitting()
+            throws IOException
+    {
+        List<String> lines = IntStream.range(0, 10_000).mapToObj(i -> "{\"id\":" + i + ",\"name\":\"" + "x".repeat(i % 50) + "\"}").toList();
+        // blank lines and CRLF line endings are allowed
+        String text = String.join("\n", lines).replace("\"id\":17,", "\"id\":17,\r").replace("{\"id\":99,", "\n  \n{\"id\":99,") + "\n";
+        List<String> expected = lines.stream().map(line -> line.replace("\"id\":17,", "\"id\":17,\r")).toList();
+
+        assertEquals(expected, lines(Lines.spliterator(ByteBuffer.wrap(text.getBytes(UTF_8))), false));
+        assertEquals(expected, lines(Lines.spliterator(ByteBuffer.wrap(text.getBytes(UTF_8))), true));
+
+        Path path = Files.createTempFile("lines", ".json");
+        try {
+            Files.writeString(path, text);
+            assertEquals(expected, lines(Lines.spliterator(path), true));
+            // many small mapped regions and splits
+            assertEquals(expected, lines(Lines.spliterator(path, 0, 4096, 64), true));
+            assertThrows(RuntimeException.class, () -> Lines.spliterator(path, 0, 16, 64));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testDeserializeLines()
+            throws IOException
+    {
+        List<Event> events = IntStream.range(0, 100_000).mapToObj(i -> new Event(i, "event" + (i % 10), i / 4.0)).toList();
+        Json json = Json.instance();
+        Path path = Files.createTempFile("events", ".ndjson");
+        try {
+            Files.writeString(path, events.stream().map(json::serializeToString).collect(Collectors.joining("\n")));
+            assertEquals(events, json.deserializeLines(Event.class, path).toList());
+            assertEquals(events.stream().mapToLong(Event::id).sum(), json.deserializeLines(Event.class, path).unordered().mapToLong(Event::id).sum());
+            assertEquals(events, Json.builder().withIndexedParsing().build().deserializeLines(Event.class, path).toList());
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    private static List<String> lines(Spliterator<ByteBuffer> spliterator, boolean parallel)
+    {
+        return StreamSupport.stream(spliterator, parallel).map(line -> UTF_8.decode(line).toString()).toList();
+    }
+}
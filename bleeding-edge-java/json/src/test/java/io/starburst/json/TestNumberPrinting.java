@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Starburst Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.starburst.json;
+
+import io.starburst.json.JsonToken.NumberToken;
+import io.starburst.json.util.LazyNumber;
+import io.starburst.json.util.NumberPrinter;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestNumberPrinting
+{
+    public record Metrics(String name, List<Double> values, float ratio, long total) {}
+
+    @Test
+    public void testEdgeCases()
+    {
+        for (double value : new double[] {0.0, -0.0, 1.0, 0.1, 1e7, 9999999.0, 1e-3, 9.999e-4, 1e23, 2e22, 9007199254740992.0,
+                Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            assertPrints(Double.toString(value), value);
+        }
+        for (float value : new float[] {0.0f, -0.0f, 1.0f, 0.1f, 1e7f, 1e-3f, 3.4f, Float.MIN_VALUE, Float.MIN_NORMAL, Float.MAX_VALUE}) {
+            assertPrints(Float.toString(value), value);
+        }
+        for (long value : new long[] {0, 9, 10, 99, 100, -1, 1_000_000_000_000_000_000L, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertPrints(Long.toString(value), value);
+        }
+        assertPrints(Integer.toString(Integer.MIN_VALUE), Integer.MIN_VALUE);
+        assertPrints("12345678901234567890.5", new BigDecimal("12345678901234567890.5"));
+        assertPrints("1.50", new LazyNumber("1.50"));
+    }
+
+    @Test
+    public void testRandomDifferential()
+    {
+        // Double.toString() and Float.toString() produce the shortest round trip representation on JDK 19+
+        Random random = new Random(0xcafeL);
+        for (int i = 0; i < 1_000_000; ++i) {
+            double d = switch (i % 3) {
+                case 0 -> Double.longBitsToDouble(random.nextLong());
+                case 1 -> random.nextDouble() * Math.pow(10, random.nextInt(30) - 15);
+                default -> (double) (random.nextLong() >> random.nextInt(64));
+            };
+            assertPrints(Double.toString(d), d);
+            float f = switch (i % 3) {
+                case 0 -> Float.intBitsToFloat(random.nextInt());
+                case 1 -> (float) (random.nextDouble() * Math.pow(10, random.nextInt(20) - 10));
+                default -> (float) (random.nextInt() >> random.nextInt(32));
+            };
+            assertPrints(Float.toString(f), f);
+            long l = random.nextLong() >> random.nextInt(64);
+            assertPrints(Long.toString(l), l);
+        }
+    }
+
+    @Test
+    public void testSerialize()
+    {
+        Metrics metrics = new Metrics("cpu", List.of(1.0, 2.5, 1e300, 1e-7), 3.4f, Long.MIN_VALUE);
+        assertEquals("{\"name\":\"cpu\",\"values\":[1.0,2.5,1.0E300,1.0E-7],\"ratio\":3.4,\"total\":-9223372036854775808}", Json.instance().serializeToString(metrics));
+
+        Json pretty = Json.builder().withPrettyPrinting().build();
+        String expected = """
+                {
+                  "name": "cpu",
+                  "values": [
+                    1.0,
+                    2.5,
+                    1.0E300,
+                    1.0E-7
+                  ],
+                  "ratio": 3.4,
+                  "total": -9223372036854775808
+                }""";
+        assertEquals(expected, pretty.serializeToString(metrics));
+        StringWriter writer = new StringWriter();
+        pretty.serializeToWriter(metrics, writer);
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    public void testNoAllocation()
+    {
+        Random random = new Random(0);
+        List<NumberToken> tokens = random.doubles(10_000).mapToObj(d -> random.nextBoolean() ? new NumberToken(d) : NumberToken.of(random.nextLong())).toList();
+        StringBuilder output = new StringBuilder(1_000_000);
+        JsonPrinter printer = JsonPrinter.instance();
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int warmup = 0; warmup < 50; ++warmup) {
+            output.setLength(0);
+            print(printer, tokens, output);
+        }
+        output.setLength(0);
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        print(printer, tokens, output);
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(output.length() > 100_000);
+        assertTrue(allocated < 10_000, "allocated " + allocated);
+    }
+
+    private static void print(JsonPrinter printer, List<NumberToken> tokens, StringBuilder output)
+    {
+        for (NumberToken token : tokens) {
+            printer.print(token, output);
+        }
+    }
+
+    private static void assertPrints(String expected, Number number)
+    {
+        StringBuilder output = new StringBuilder("[");
+        NumberPrinter.append(output, number);
+        assertEquals("[" + expected, output.toString());
+    }
+}
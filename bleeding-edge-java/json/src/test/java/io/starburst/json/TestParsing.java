@@ -25,15 +25,34 @@ import io.starburst.json.JsonToken.NumberToken;
 import io.starburst.json.JsonToken.ObjectNameToken;
 import io.starburst.json.JsonToken.StringToken;
 import io.starburst.json.JsonToken.ValueSeparatorToken;
+import io.starburst.json.util.Chars;
+import io.starburst.json.util.Utf8;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static io.starburst.json.EdgeCases.FLOATS;
 import static io.starburst.json.EdgeCases.UNICODE_ESCAPE;
 import static io.starburst.json.JsonAssertions.assertNoToken;
 import static io.starburst.json.JsonAssertions.assertToken;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TestParsing
 {
@@ -86,6 +105,47 @@ public class TestParsing
         assertNoToken(iterator);
     }
 
+    @Test
+    public void testBigNumbers()
+    {
+        String json = "[9223372036854775807, -9223372036854775808, 9223372036854775808, 0.1000000000000000000001]";
+        List<NumberToken> numbers = numberTokens(JsonParser.instance(), json);
+        assertEquals(Long.MAX_VALUE, numbers.get(0).value());
+        assertEquals(Long.MIN_VALUE, numbers.get(1).value());
+        assertEquals(new BigInteger("9223372036854775808"), numbers.get(2).value());
+        assertEquals(0.1, numbers.get(3).value());
+
+        // lazy numbers keep the text so decimals are exact
+        JsonParser lazy = JsonParser.instance().withLazyNumbers();
+        List<NumberToken> lazyNumbers = numberTokens(lazy, json);
+        assertEquals(Long.MAX_VALUE, lazyNumbers.get(0).value());
+        assertEquals(new BigInteger("9223372036854775808"), lazyNumbers.get(2).bigIntegerValue());
+        assertEquals(new BigDecimal("0.1000000000000000000001"), lazyNumbers.get(3).bigDecimalValue());
+        assertEquals(0.1, lazyNumbers.get(3).value().doubleValue());
+        assertThrows(RuntimeException.class, () -> lazyNumbers.get(3).bigIntegerValue());
+        assertEquals(lazyNumbers, numberTokens(JsonParser.indexed().withLazyNumbers(), json));
+        // the original text is printed back
+        assertEquals(json.replace(" ", ""), lazy.parse(json.chars()).map(JsonPrinter.instance()::print).collect(Collectors.joining()));
+    }
+
+    @Test
+    public void testInvalidNumbers()
+    {
+        for (String json : List.of("[1.2.3]", "[e5]", "[1e]", "[-]", "[.]", "[1e+]", "[1-2]", "[1.5e3.2]")) {
+            assertThrows(NumberFormatException.class, () -> JsonParser.instance().parse(json.chars()).toList(), json);
+            assertThrows(NumberFormatException.class, () -> JsonParser.indexed().parse(json.getBytes(UTF_8)).toList(), json);
+            assertThrows(NumberFormatException.class, () -> JsonParser.instance().withLazyNumbers().parse(json.chars()).toList(), json);
+        }
+        for (String json : List.of("[1]", "[-1.5]", "[1e5]", "[1.5E-3]", "[0.5e+10]")) {
+            assertEquals(numberTokens(JsonParser.instance(), json), numberTokens(JsonParser.indexed(), json));
+        }
+    }
+
+    private static List<NumberToken> numberTokens(JsonParser parser, String json)
+    {
+        return parser.parse(json.getBytes(UTF_8)).filter(token -> token instanceof NumberToken).map(token -> (NumberToken) token).toList();
+    }
+
     @Test
     public void testBooleans()
     {
@@ -150,4 +210,144 @@ public class TestParsing
             assertNoToken(iterator);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUtf8Bytes()
+    {
+        String json = "{\"text\":\"a\u00e9\u20ac\uD83D\uDE03z\", \"caf\u00e9\":[1,true,null]}";
+        byte[] utf8 = json.getBytes(UTF_8);
+        assertEquals(JsonParser.instance().parse(json.chars()).toList(), JsonParser.instance().parse(utf8).toList());
+        assertEquals(JsonParser.instance().parse(json.chars()).toList(), JsonParser.instance().parse(ByteBuffer.wrap(utf8)).toList());
+        assertEquals(JsonParser.instance().parse(json.chars()).toList(), JsonParser.instance().parse(new ByteArrayInputStream(utf8)).toList());
+
+        Iterator<JsonToken> iterator = JsonParser.instance().parse(utf8).iterator();
+        assertToken(BeginObjectToken.class, iterator);
+        assertToken(ObjectNameToken.class, iterator, objectNameToken -> objectNameToken.name().equals("text"));
+        assertToken(StringToken.class, iterator, stringToken -> stringToken.value().equals("a\u00e9\u20ac\uD83D\uDE03z"));
+        assertToken(ValueSeparatorToken.class, iterator);
+        assertToken(ObjectNameToken.class, iterator, objectNameToken -> objectNameToken.name().equals("caf\u00e9"));
+    }
+
+    @Test
+    public void testUtf8InputStreamBoundaries()
+    {
+        String json = "[\"\uD83D\uDE03\u00e9\u20ac\", 12345, \"\u20ac\u20ac\u20ac\"]";
+        byte[] utf8 = json.getBytes(UTF_8);
+        List<JsonToken> expected = JsonParser.instance().parse(json.chars()).toList();
+        // every small buffer size forces multibyte sequences and tokens to span buffer refills
+        for (int bufferSize = 1; bufferSize < 8; ++bufferSize) {
+            InputStream inputStream = new ByteArrayInputStream(utf8);
+            assertEquals(expected, JsonParser.instance().parse(Utf8.iterator(inputStream, bufferSize)).toList());
+        }
+    }
+
+    @Test
+    public void testByteChunks()
+            throws IOException
+    {
+        // tokens and multibyte chars span the chunks that byte input is read in
+        String json = IntStream.range(0, 2_000)
+                .mapToObj(i -> "{\"caf\u00e9\":\"" + "\u20ac\uD83D\uDE03x".repeat(i % 7) + "\", \"n\": " + i + ".5}")
+                .collect(Collectors.joining(", ", "[", "]"));
+        byte[] utf8 = json.getBytes(UTF_8);
+        List<JsonToken> expected = JsonParser.instance().parse(json.chars()).toList();
+        assertEquals(expected, JsonParser.instance().parse(utf8).toList());
+        assertEquals(expected, JsonParser.instance().parse(ByteBuffer.allocateDirect(utf8.length).put(utf8).flip()).toList());
+        // short reads
+        InputStream trickle = new ByteArrayInputStream(utf8)
+        {
+            @Override
+            public synchronized int read(byte[] b, int off, int len)
+            {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        assertEquals(expected, JsonParser.instance().parse(trickle).toList());
+        Path path = Files.createTempFile("chunks", ".json");
+        try {
+            Files.write(path, utf8);
+            assertEquals(expected, JsonParser.instance().parse(path).toList());
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testCustomParser()
+    {
+        // parse(IntStream) is all a parser has to implement - the other inputs are decoded to chars for it
+        JsonParser noNulls = stream -> JsonParser.instance().parse(stream).filter(token -> !(token instanceof NullToken));
+        String json = "{\"a_b\": null, \"c\": [null, 1]}";
+        List<JsonToken> expected = List.of(BeginObjectToken.INSTANCE, ObjectNameToken.of("A_B"), ValueSeparatorToken.INSTANCE, ObjectNameToken.of("C"),
+                BeginArrayToken.INSTANCE, ValueSeparatorToken.INSTANCE, NumberToken.of(1L), EndArrayToken.INSTANCE, EndObjectToken.INSTANCE);
+        JsonParser upperCase = noNulls.withNaming(name -> name.toUpperCase(Locale.ROOT));
+        assertEquals(expected, upperCase.parse(json.chars()).toList());
+        assertEquals(expected, upperCase.parse(json.getBytes(UTF_8)).toList());
+        assertEquals(expected, upperCase.parse(new StringReader(json)).toList());
+    }
+
+    @Test
+    public void testInvalidUtf8()
+    {
+        assertThrows(RuntimeException.class, () -> JsonParser.instance().parse(new byte[] {'"', (byte) 0xc3, '"'}).toList());
+        assertThrows(RuntimeException.class, () -> JsonParser.instance().parse(new byte[] {'"', (byte) 0xc0, (byte) 0x80, '"'}).toList());
+        assertThrows(RuntimeException.class, () -> JsonParser.instance().parse(new byte[] {'"', (byte) 0xed, (byte) 0xa0, (byte) 0x80, '"'}).toList());
+        assertThrows(RuntimeException.class, () -> JsonParser.instance().parse(new byte[] {'"', (byte) 0xff, '"'}).toList());
+    }
+
+    @Test
+    public void testChunkedReader()
+    {
+        String json = "{\"name\":\"a string that is longer than the window\",\n\"values\":[123456789, -1.5e10, true, false, null],\r\n\"escaped\":\"\\u0041\\n\"}";
+        List<JsonToken> expected = JsonParser.instance().parse(json.chars()).toList();
+        for (int bufferSize = 1; bufferSize < 8; ++bufferSize) {
+            assertEquals(expected, JsonParser.instance().parse(Chars.iterator(new StringReader(json), bufferSize)).toList());
+        }
+        assertEquals(expected, JsonParser.instance().parse(new StringReader(json)).toList());
+
+        // readers may return fewer chars than requested
+        Reader trickleReader = new StringReader(json)
+        {
+            @Override
+            public int read(char[] buffer, int offset, int length)
+                    throws IOException
+            {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+        assertEquals(expected, JsonParser.instance().parse(trickleReader).toList());
+    }
+
+    @Test
+    public void testReaderLineBreaks()
+    {
+        Iterator<JsonToken> iterator = JsonParser.instance().parse(new StringReader("[1\n,2\n]\n")).iterator();
+        assertToken(BeginArrayToken.class, iterator);
+        assertToken(NumberToken.class, iterator, n -> n.value().intValue() == 1);
+        assertToken(ValueSeparatorToken.class, iterator);
+        assertToken(NumberToken.class, iterator, n -> n.value().intValue() == 2);
+        assertToken(EndArrayToken.class, iterator);
+        assertNoToken(iterator);
+
+        iterator = JsonParser.instance().parse(new StringReader("1\n2")).iterator();
+        assertToken(NumberToken.class, iterator, n -> n.value().intValue() == 1);
+        assertToken(NumberToken.class, iterator, n -> n.value().intValue() == 2);
+        assertNoToken(iterator);
+    }
+
+    @Test
+    public void testMappedFile()
+            throws IOException, URISyntaxException
+    {
+        Path path = Path.of(getClass().getResource("/large.json").toURI());
+        List<JsonToken> expected = JsonParser.instance().parse(Files.readString(path).chars()).toList();
+
+        // large enough to be memory mapped
+        assertEquals(expected, JsonParser.instance().parse(path).toList());
+        // read into the heap
+        assertEquals(expected, JsonParser.instance().parse(Utf8.iterator(path, Long.MAX_VALUE, Integer.MAX_VALUE)).toList());
+        // mapped as many small regions so that multibyte sequences and tokens span regions
+        assertEquals(expected, JsonParser.instance().parse(Utf8.iterator(path, 0, 4093)).toList());
+    }
+}